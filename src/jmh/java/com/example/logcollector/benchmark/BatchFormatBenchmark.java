@@ -0,0 +1,201 @@
+package com.example.logcollector.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.logcollector.codec.BatchLineParser;
+import com.example.logcollector.codec.TarEntryReader;
+import com.example.logcollector.model.LogEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 各批量格式的解码加逐行解析吞吐（行/秒），内容在内存中，不含发布到 RingBuffer 和写文件
+ * pipe 为竖线格式，ndjson 为每行一个 JSON 对象；zip 和 tar.gz 各含 4 个条目
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchFormatBenchmark {
+    private static final int LINES = 50_000;
+    private static final int ENTRIES = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Param({"zip", "tar.gz", "gzip", "plain"})
+    private String format;
+
+    @Param({"pipe", "ndjson"})
+    private String content;
+
+    private final BatchLineParser parser = new BatchLineParser(new ObjectMapper().getFactory());
+    private final LogEntry target = new LogEntry();
+    private final byte[] lineBuffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer line = ByteBuffer.wrap(lineBuffer);
+    private byte[] archive;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[][] entries = new byte[ENTRIES][];
+        for (int e = 0; e < ENTRIES; e++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = e * LINES / ENTRIES; i < (e + 1) * LINES / ENTRIES; i++) {
+                String time = String.format("2026-10-15 12:%02d:%02d", i / 1200 % 60, i / 20 % 60);
+                if (content.equals("pipe")) {
+                    sb.append("id-").append(i).append("|10.0.0.1|").append(time).append("|login|").append(i % 1000);
+                } else {
+                    sb.append("{\"id\":\"id-").append(i).append("\",\"ip\":\"10.0.0.1\",\"eventTime\":\"")
+                            .append(time).append("\",\"name\":\"login\",\"randomNumber\":").append(i % 1000).append('}');
+                }
+                sb.append('\n');
+            }
+            entries[e] = sb.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        archive = encode(entries);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int decodeAndParse() throws IOException {
+        int valid = 0;
+        switch (format) {
+            case "zip":
+                try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+                    while (zip.getNextEntry() != null) {
+                        valid += parseLines(zip);
+                    }
+                }
+                break;
+            case "tar.gz":
+                try (TarEntryReader tar = new TarEntryReader(
+                        new GZIPInputStream(new ByteArrayInputStream(archive), BUFFER_SIZE), 0)) {
+                    while (tar.getNextEntry() != null) {
+                        valid += parseLines(tar);
+                    }
+                }
+                break;
+            case "gzip":
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(archive), BUFFER_SIZE)) {
+                    valid = parseLines(in);
+                }
+                break;
+            default:
+                valid = parseLines(new ByteArrayInputStream(archive));
+        }
+        if (valid != LINES) {
+            throw new IllegalStateException("parsed " + valid + " of " + LINES + " lines");
+        }
+        return valid;
+    }
+
+    /**
+     * 与批量处理相同的读法：解压输出读入行缓冲区，按换行切分后在缓冲区中直接解析
+     */
+    private int parseLines(InputStream in) throws IOException {
+        int valid = 0;
+        int length = 0;
+        int read;
+        while ((read = in.read(lineBuffer, length, lineBuffer.length - length)) != -1) {
+            int limit = length + read;
+            int lineStart = 0;
+            for (int i = length; i < limit; i++) {
+                if (lineBuffer[i] == '\n') {
+                    if (i > lineStart && parser.parse(line, lineStart, i, target)) {
+                        valid++;
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            length = limit - lineStart;
+            System.arraycopy(lineBuffer, lineStart, lineBuffer, 0, length);
+        }
+        return valid;
+    }
+
+    private byte[] encode(byte[][] entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        switch (format) {
+            case "zip":
+                try (ZipOutputStream zip = new ZipOutputStream(out)) {
+                    for (int e = 0; e < entries.length; e++) {
+                        zip.putNextEntry(new ZipEntry("entry-" + e + ".log"));
+                        zip.write(entries[e]);
+                    }
+                }
+                break;
+            case "tar.gz":
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    for (int e = 0; e < entries.length; e++) {
+                        writeTarEntry(gzip, "entry-" + e + ".log", entries[e]);
+                    }
+                    gzip.write(new byte[1024]);
+                }
+                break;
+            case "gzip":
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    for (byte[] entry : entries) {
+                        gzip.write(entry);
+                    }
+                }
+                break;
+            default:
+                for (byte[] entry : entries) {
+                    out.write(entry);
+                }
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeTarEntry(OutputStream out, String name, byte[] data) throws IOException {
+        byte[] header = new byte[512];
+        putString(header, 0, name);
+        putString(header, 100, "0000644");
+        putString(header, 108, "0000000");
+        putString(header, 116, "0000000");
+        putString(header, 124, String.format("%011o", data.length));
+        putString(header, 136, "00000000000");
+        header[156] = '0';
+        putString(header, 257, "ustar");
+        putString(header, 263, "00");
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        int sum = 0;
+        for (byte b : header) {
+            sum += b & 0xff;
+        }
+        putString(header, 148, String.format("%06o", sum));
+        out.write(header);
+        out.write(data);
+        out.write(new byte[(512 - data.length % 512) % 512]);
+    }
+
+    private static void putString(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.logcollector.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.logcollector.codec.EventTimeCodec;
+
+/**
+ * 事件时间的解析与格式化：DateTimeFormatter 对比 EventTimeCodec
+ * eventsPerSecond 为同一秒内连续出现的事件数，1 表示每个值都不同，缓存从不命中
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventTimeCodecBenchmark {
+    private static final int VALUES = 1 << 16;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Param({"1", "100"})
+    private int eventsPerSecond;
+
+    private final EventTimeCodec codec = new EventTimeCodec();
+    private String[] strings;                                   // 旧路径中 split 得到的时间字段
+    private ByteBuffer bytes;                                   // 新路径中缓冲区里的时间字段，依次排列
+    private LocalDateTime[] values;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime base = LocalDateTime.of(2026, 10, 15, 0, 0);
+        strings = new String[VALUES];
+        values = new LocalDateTime[VALUES];
+        bytes = ByteBuffer.allocate(VALUES * EventTimeCodec.LENGTH);
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = base.plusSeconds(i / eventsPerSecond);
+            strings[i] = FORMATTER.format(values[i]);
+            bytes.put(strings[i].getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (VALUES - 1);
+        return index;
+    }
+
+    @Benchmark
+    public LocalDateTime parseFormatter() {
+        return LocalDateTime.parse(strings[next()], FORMATTER);
+    }
+
+    @Benchmark
+    public LocalDateTime parseCodec() {
+        int start = next() * EventTimeCodec.LENGTH;
+        return codec.parse(bytes, start, start + EventTimeCodec.LENGTH);
+    }
+
+    @Benchmark
+    public String formatFormatter() {
+        return FORMATTER.format(values[next()]);
+    }
+
+    @Benchmark
+    public String formatCodec() {
+        return codec.format(values[next()]);
+    }
+}
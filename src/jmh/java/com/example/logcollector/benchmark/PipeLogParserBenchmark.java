@@ -0,0 +1,93 @@
+package com.example.logcollector.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.logcollector.codec.PipeLogParser;
+import com.example.logcollector.model.LogEntry;
+
+/**
+ * 竖线格式日志行的解析：原来的 new String + split + LocalDateTime.parse 对比 PipeLogParser
+ * 每秒 20 行；random 为每行随机的 IP 和名称，single 为同一来源的行（IP、名称不变）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PipeLogParserBenchmark {
+    private static final int LINES = 1 << 16;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Param({"random", "single"})
+    private String source;
+
+    private final PipeLogParser parser = new PipeLogParser();
+    private final LogEntry target = new LogEntry();
+    private ByteBuffer buffer;                                  // 所有行依次排列，不含换行符
+    private int[] starts;                                       // 各行的起始位置，最后一个元素为结束位置
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(20261015L);
+        LocalDateTime base = LocalDateTime.of(2026, 10, 15, 0, 0);
+        StringBuilder content = new StringBuilder();
+        starts = new int[LINES + 1];
+        for (int i = 0; i < LINES; i++) {
+            starts[i] = content.length();
+            boolean single = source.equals("single");
+            content.append("id-").append(1_000_000 + i).append('|')
+                    .append(single ? "10.0.0.1" : "10.0." + random.nextInt(256) + "." + random.nextInt(256))
+                    .append('|').append(FORMATTER.format(base.plusSeconds(i / 20))).append('|')
+                    .append(single ? "login" : "name-" + random.nextInt(1000)).append('|')
+                    .append(random.nextInt(1000));
+        }
+        starts[LINES] = content.length();
+        // 全部为 ASCII，字符位置即字节位置
+        buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int next() {
+        index = (index + 1) & (LINES - 1);
+        return index;
+    }
+
+    @Benchmark
+    public LogEntry split() {
+        int line = next();
+        String text = new String(buffer.array(), starts[line], starts[line + 1] - starts[line], StandardCharsets.UTF_8);
+        String[] parts = text.split("\\|");
+        LogEntry entry = new LogEntry();
+        entry.setId(parts[0]);
+        entry.setIp(parts[1]);
+        entry.setEventTime(LocalDateTime.parse(parts[2], FORMATTER));
+        entry.setName(parts[3]);
+        entry.setRandomNumber(Integer.parseInt(parts[4]));
+        return entry;
+    }
+
+    @Benchmark
+    public LogEntry pipeParser() {
+        int line = next();
+        parser.parse(buffer, starts[line], starts[line + 1], target);
+        return target;
+    }
+}
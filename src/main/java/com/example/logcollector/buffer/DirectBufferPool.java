@@ -0,0 +1,115 @@
+package com.example.logcollector.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 堆外直接缓冲区池
+ * 写入路径使用直接缓冲区，FileChannel 写入时无需再拷贝到 JDK 内部的临时直接缓冲区，也不增加 GC 压力
+ * 缓冲区按容量分组复用，通过 lease/release 显式借还；池内分配的堆外内存总量受 max-bytes 限制
+ *
+ * 开启泄漏检测时记录每个借出缓冲区的借出位置，重复归还或归还非本池缓冲区时报错，
+ * 关闭时打印仍未归还的缓冲区及其借出调用栈
+ */
+@Component
+public class DirectBufferPool {
+    private final long maxBytes;                                          // 堆外内存上限
+    private final boolean leakDetection;                                  // 是否开启泄漏检测
+    private final Map<Integer, Queue<ByteBuffer>> freeBuffers = new ConcurrentHashMap<>();  // 容量 -> 空闲缓冲区
+    private final AtomicLong allocatedBytes = new AtomicLong();           // 已分配的堆外内存
+    private final AtomicInteger leased = new AtomicInteger();             // 借出中的缓冲区数
+    private final Map<ByteBuffer, Throwable> leaseSites = new IdentityHashMap<>();  // 泄漏检测：缓冲区 -> 借出位置
+
+    public DirectBufferPool(MeterRegistry meterRegistry,
+                            @Value("${log-collector.buffer-pool.max-bytes:268435456}") long maxBytes,
+                            @Value("${log-collector.buffer-pool.leak-detection:false}") boolean leakDetection) {
+        this.maxBytes = maxBytes;
+        this.leakDetection = leakDetection;
+
+        Gauge.builder("logcollector.buffer.pool.max.bytes", () -> this.maxBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("logcollector.buffer.pool.allocated.bytes", allocatedBytes, AtomicLong::get)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("logcollector.buffer.pool.leased", leased, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 借出一个指定容量的直接缓冲区，返回时 position 为 0、limit 为容量
+     * @throws IllegalStateException 池内没有空闲缓冲区且已达到堆外内存上限
+     */
+    public ByteBuffer lease(int capacity) {
+        ByteBuffer buffer = freeQueue(capacity).poll();
+        if (buffer == null) {
+            buffer = allocate(capacity);
+        }
+        buffer.clear();
+        leased.incrementAndGet();
+        if (leakDetection) {
+            synchronized (leaseSites) {
+                leaseSites.put(buffer, new Throwable("Direct buffer leased here"));
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * 归还借出的缓冲区，归还后调用方不得再使用
+     */
+    public void release(ByteBuffer buffer) {
+        if (leakDetection) {
+            synchronized (leaseSites) {
+                if (leaseSites.remove(buffer) == null) {
+                    throw new IllegalStateException("Buffer released twice or not leased from this pool");
+                }
+            }
+        }
+        leased.decrementAndGet();
+        freeQueue(buffer.capacity()).offer(buffer);
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        long allocated;
+        do {
+            allocated = allocatedBytes.get();
+            if (allocated + capacity > maxBytes) {
+                throw new IllegalStateException("Direct buffer pool exhausted: "
+                        + allocated + " of " + maxBytes + " bytes allocated");
+            }
+        } while (!allocatedBytes.compareAndSet(allocated, allocated + capacity));
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    private Queue<ByteBuffer> freeQueue(int capacity) {
+        return freeBuffers.computeIfAbsent(capacity, key -> new ConcurrentLinkedQueue<>());
+    }
+
+    @PreDestroy
+    public void reportLeaks() {
+        if (!leakDetection) {
+            return;
+        }
+        synchronized (leaseSites) {
+            for (Map.Entry<ByteBuffer, Throwable> leak : leaseSites.entrySet()) {
+                System.err.println("Direct buffer of " + leak.getKey().capacity() + " bytes was never released");
+                leak.getValue().printStackTrace();
+            }
+        }
+    }
+}
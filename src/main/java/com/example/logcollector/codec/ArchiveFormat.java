@@ -0,0 +1,82 @@
+package com.example.logcollector.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 批量上报文件的格式，优先按开头的魔数识别，魔数无法确定时参考 Content-Type
+ * gzip 需要再看解压后的开头，才能区分 tar.gz 和单个 gzip 压缩的文本；无法识别的内容按文本行处理
+ * 所有格式解出的内容都是换行分隔的日志行，竖线格式和 NDJSON 均可
+ */
+public enum ArchiveFormat {
+    ZIP,                        // 每个条目并行处理
+    GZIP,                       // 单个 gzip 压缩的文本，多个成员首尾相接时按一个文本处理
+    TAR,                        // 条目按顺序处理
+    TAR_GZIP,
+    PLAIN;                      // 未压缩的文本
+
+    public static final int HEAD_BYTES = 512;                   // 识别所需的开头字节数，覆盖 tar 头中的 ustar 标记
+
+    private static final int TAR_MAGIC_OFFSET = 257;
+
+    /**
+     * 按文件开头识别
+     * @param head 文件开头，不足 HEAD_BYTES 时为整个文件
+     * @param contentType 请求或 multipart 部分的 Content-Type，可以为 null
+     * @return ZIP、GZIP、TAR 或 PLAIN；GZIP 需要再用 detectGzipContent 区分 tar.gz
+     */
+    public static ArchiveFormat detect(byte[] head, int length, String contentType) {
+        if (length >= 4 && head[0] == 'P' && head[1] == 'K'
+                && ((head[2] == 3 && head[3] == 4) || (head[2] == 5 && head[3] == 6))) {
+            return ZIP;
+        }
+        if (length >= 2 && (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b) {
+            return GZIP;
+        }
+        if (hasTarMagic(head, length)) {
+            return TAR;
+        }
+        // 魔数不匹配时按 Content-Type：声明为压缩包的损坏文件交给对应的解码器报错，而不是当作文本行逐行拒绝
+        String type = contentType == null ? "" : contentType.toLowerCase();
+        if (type.contains("gzip") || type.contains("tgz")) {
+            return GZIP;
+        }
+        if (type.contains("zip")) {
+            return ZIP;
+        }
+        if (type.contains("tar")) {
+            return TAR;
+        }
+        return PLAIN;
+    }
+
+    /**
+     * 按 gzip 解压后的开头区分 tar.gz 和单个 gzip 压缩的文本
+     * 没有 ustar 标记的旧式 tar 只能通过 Content-Type 中的 tar 或 tgz 识别
+     * @return TAR_GZIP 或 GZIP
+     */
+    public static ArchiveFormat detectGzipContent(byte[] head, int length, String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase();
+        return hasTarMagic(head, length) || type.contains("tar") || type.contains("tgz") ? TAR_GZIP : GZIP;
+    }
+
+    /**
+     * 读取流的开头，最多填满 head
+     * @return 读取的字节数，流较短时小于 head.length
+     */
+    public static int readHead(InputStream in, byte[] head) throws IOException {
+        int length = 0;
+        int read;
+        while (length < head.length && (read = in.read(head, length, head.length - length)) != -1) {
+            length += read;
+        }
+        return length;
+    }
+
+    private static boolean hasTarMagic(byte[] head, int length) {
+        return length >= TAR_MAGIC_OFFSET + 5
+                && head[TAR_MAGIC_OFFSET] == 'u' && head[TAR_MAGIC_OFFSET + 1] == 's'
+                && head[TAR_MAGIC_OFFSET + 2] == 't' && head[TAR_MAGIC_OFFSET + 3] == 'a'
+                && head[TAR_MAGIC_OFFSET + 4] == 'r';
+    }
+}
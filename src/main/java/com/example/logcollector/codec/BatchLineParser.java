@@ -0,0 +1,115 @@
+package com.example.logcollector.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.example.logcollector.model.LogEntry;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * 批量上报和 UDP 数据报的行解析器，同一文件或数据报中竖线格式和 NDJSON 可以混用
+ * 以 { 开头的行按 JSON 对象解析，其余按竖线格式解析；堆内缓冲区中的 JSON 行直接从底层数组解析，不做拷贝，
+ * 直接缓冲区中的 JSON 行批量拷贝到临时数组后解析
+ */
+public final class BatchLineParser implements LineParser {
+    private static final byte OPEN_BRACE = '{';
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final JsonFactory jsonFactory;
+    private final PipeLogParser pipeParser = new PipeLogParser();
+    private final LogEntryJsonReader jsonReader = new LogEntryJsonReader();
+    private byte[] scratch = new byte[256];                     // 直接缓冲区中 JSON 行的临时拷贝
+    private ByteBuffer copySource;                              // 最近一次拷贝 JSON 行的直接缓冲区
+    private ByteBuffer copyView;                                // copySource 的副本，批量读取时不改变原缓冲区的 position
+    private ByteBuffer lines;                                   // split 切分的缓冲区
+    private int[] bounds = new int[256];                        // split 切分出的各行起止位置
+    private RejectReason failure;
+
+    public BatchLineParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    public boolean parse(ByteBuffer buffer, int start, int end, LogEntry target) {
+        if (buffer.get(start) != OPEN_BRACE) {
+            boolean valid = pipeParser.parse(buffer, start, end, target);
+            failure = valid ? null : pipeParser.failure();
+            return valid;
+        }
+        boolean valid;
+        try (JsonParser parser = createParser(buffer, start, end)) {
+            valid = parser.nextToken() == JsonToken.START_OBJECT && jsonReader.read(parser, target);
+        } catch (IOException e) {
+            valid = false;
+        }
+        failure = valid ? null : RejectReason.INVALID_JSON;
+        return valid;
+    }
+
+    /**
+     * 按换行切分缓冲区 [0, length) 中已完整到达的内容，去掉行尾的回车并跳过空行，之后用 parseLine 按行号解析
+     * 流式读取的调用方需要处理跨读取边界和超长的行，自行切分后调用 parse
+     *
+     * @return 行数
+     */
+    public int split(ByteBuffer buffer, int length) {
+        lines = buffer;
+        int count = 0;
+        int lineStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i < length && buffer.get(i) != LINE_FEED) {
+                continue;
+            }
+            int end = i;
+            if (end > lineStart && buffer.get(end - 1) == CARRIAGE_RETURN) {
+                end--;
+            }
+            if (end > lineStart) {
+                if (bounds.length < (count + 1) * 2) {
+                    bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                }
+                bounds[count * 2] = lineStart;
+                bounds[count * 2 + 1] = end;
+                count++;
+            }
+            lineStart = i + 1;
+        }
+        return count;
+    }
+
+    /**
+     * 解析最近一次 split 切分出的第 index 行
+     *
+     * @return 是否解析成功
+     */
+    public boolean parseLine(int index, LogEntry target) {
+        return parse(lines, bounds[index * 2], bounds[index * 2 + 1], target);
+    }
+
+    @Override
+    public RejectReason failure() {
+        return failure;
+    }
+
+    private JsonParser createParser(ByteBuffer buffer, int start, int end) throws IOException {
+        int length = end - start;
+        if (buffer.hasArray()) {
+            return jsonFactory.createParser(buffer.array(), buffer.arrayOffset() + start, length);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        if (buffer != copySource) {
+            copySource = buffer;
+            copyView = buffer.duplicate();
+        }
+        copyView.limit(end);
+        copyView.position(start);
+        copyView.get(scratch, 0, length);
+        return jsonFactory.createParser(scratch, 0, length);
+    }
+}
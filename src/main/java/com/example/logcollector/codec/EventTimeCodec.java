@@ -0,0 +1,152 @@
+package com.example.logcollector.codec;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 事件时间 yyyy-MM-dd HH:mm:ss 的专用编解码器
+ * 解析时按固定位置逐位计算数字，14 位数字按顺序拼成一个 long 作为这一秒的键；
+ * 事件时间集中在当前这一秒附近，键与上一次相同时直接返回上一次的 LocalDateTime（不可变对象），
+ * 不再校验字段取值，也不创建新对象；格式化同样缓存上一次的结果
+ *
+ * 解析规则与 DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss") 的默认 SMART 解析一致：
+ * 年份 0001-9999，超出当月天数的日期调整为当月最后一天，24:00:00 表示次日零点
+ *
+ * 实例持有缓存，不是线程安全的；单线程使用的解析器各自持有实例，共享的调用方通过 current() 使用线程内实例
+ */
+public final class EventTimeCodec {
+    public static final int LENGTH = 19;                        // yyyy-MM-dd HH:mm:ss
+
+    private static final ThreadLocal<EventTimeCodec> CURRENT = ThreadLocal.withInitial(EventTimeCodec::new);
+    private static final long INVALID = -1;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private long lastKey = INVALID;                             // 上一次解析的键
+    private LocalDateTime lastParsed;                           // 上一次解析的结果
+    private LocalDateTime lastFormattedValue;                   // 上一次格式化的时间
+    private String lastFormatted;                               // 上一次格式化的结果
+
+    /**
+     * 当前线程的实例
+     */
+    public static EventTimeCodec current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 解析缓冲区中 [start, end) 的内容，不修改缓冲区的 position 和 limit
+     * @return 解析结果，格式或取值非法时返回 null
+     */
+    public LocalDateTime parse(ByteBuffer buffer, int start, int end) {
+        if (end - start != LENGTH
+                || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-'
+                || buffer.get(start + 10) != ' '
+                || buffer.get(start + 13) != ':' || buffer.get(start + 16) != ':') {
+            return null;
+        }
+        long key = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            if (isSeparator(i)) {
+                continue;
+            }
+            int digit = buffer.get(start + i) - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            key = key * 10 + digit;
+        }
+        return resolve(key);
+    }
+
+    /**
+     * 解析字符数组中 [offset, offset + length) 的内容，可直接使用 JsonParser.getTextCharacters 的结果
+     * @return 解析结果，格式或取值非法时返回 null
+     */
+    public LocalDateTime parse(char[] chars, int offset, int length) {
+        if (length != LENGTH
+                || chars[offset + 4] != '-' || chars[offset + 7] != '-' || chars[offset + 10] != ' '
+                || chars[offset + 13] != ':' || chars[offset + 16] != ':') {
+            return null;
+        }
+        long key = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            if (isSeparator(i)) {
+                continue;
+            }
+            int digit = chars[offset + i] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            key = key * 10 + digit;
+        }
+        return resolve(key);
+    }
+
+    /**
+     * 格式化为 yyyy-MM-dd HH:mm:ss，忽略纳秒；与上一次为同一时间时返回同一个字符串
+     */
+    public String format(LocalDateTime value) {
+        if (value.equals(lastFormattedValue)) {
+            return lastFormatted;
+        }
+        if (value.getYear() < 1 || value.getYear() > 9999) {
+            // 超出四位年份时沿用 DateTimeFormatter 的输出
+            return FORMATTER.format(value);
+        }
+        char[] chars = new char[LENGTH];
+        putDigits(chars, 0, value.getYear(), 4);
+        chars[4] = '-';
+        putDigits(chars, 5, value.getMonthValue(), 2);
+        chars[7] = '-';
+        putDigits(chars, 8, value.getDayOfMonth(), 2);
+        chars[10] = ' ';
+        putDigits(chars, 11, value.getHour(), 2);
+        chars[13] = ':';
+        putDigits(chars, 14, value.getMinute(), 2);
+        chars[16] = ':';
+        putDigits(chars, 17, value.getSecond(), 2);
+        lastFormattedValue = value;
+        lastFormatted = new String(chars);
+        return lastFormatted;
+    }
+
+    /**
+     * 由 yyyyMMddHHmmss 拼成的键得到时间，与上一次相同时直接返回缓存
+     */
+    private LocalDateTime resolve(long key) {
+        if (key == lastKey) {
+            return lastParsed;
+        }
+        int year = (int) (key / 10_000_000_000L);
+        int month = (int) (key / 100_000_000L % 100);
+        int day = (int) (key / 1_000_000L % 100);
+        int hour = (int) (key / 10_000L % 100);
+        int minute = (int) (key / 100L % 100);
+        int second = (int) (key % 100);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31
+                || minute > 59 || second > 59 || hour > 24 || (hour == 24 && (minute != 0 || second != 0))) {
+            return null;
+        }
+        day = Math.min(day, Month.of(month).length(Year.isLeap(year)));
+        LocalDateTime value = hour == 24
+                ? LocalDateTime.of(year, month, day, 0, 0).plusDays(1)
+                : LocalDateTime.of(year, month, day, hour, minute, second);
+        lastKey = key;
+        lastParsed = value;
+        return value;
+    }
+
+    private static boolean isSeparator(int index) {
+        return index == 4 || index == 7 || index == 10 || index == 13 || index == 16;
+    }
+
+    private static void putDigits(char[] chars, int offset, int value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.logcollector.codec;
+
+import java.nio.ByteBuffer;
+
+import com.example.logcollector.model.LogEntry;
+
+/**
+ * 把缓冲区中的一行直接解析到目标对象的解析器，解析失败通过返回值表示，不抛出异常
+ * 实现通常持有临时数组和缓存，不是线程安全的，由调用方线程独占
+ */
+public interface LineParser {
+    /**
+     * 解析缓冲区中 [start, end) 范围内的一行，不含换行符；不修改缓冲区的 position 和 limit
+     *
+     * @return 是否解析成功
+     */
+    boolean parse(ByteBuffer buffer, int start, int end, LogEntry target);
+
+    /**
+     * 最近一次 parse 返回 false 的原因
+     */
+    RejectReason failure();
+}
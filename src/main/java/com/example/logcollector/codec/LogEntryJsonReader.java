@@ -0,0 +1,163 @@
+package com.example.logcollector.codec;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+import com.example.logcollector.model.LogEntry;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.TreeNode;
+
+/**
+ * LogEntry 的 JSON 读取器
+ * 基于流式 JsonParser 逐字段写入目标对象，目标可以是 RingBuffer 中预分配的槽位，
+ * 不创建中间 LogEntry，也不经过 databind 的反射绑定；字段名与类型规则与 Jackson 默认绑定一致
+ * eventTime 的 yyyy-MM-dd HH:mm:ss 字符串由 EventTimeCodec 解析，其余形式（数组、数字等）交给解析器的
+ * ObjectCodec（应用的 ObjectMapper），与 JacksonConfig 中 databind 路径的规则一致；解析器没有 ObjectCodec 时视为非法
+ */
+public final class LogEntryJsonReader {
+    /**
+     * 读取解析器当前所在的 JSON 对象，调用前解析器应停在 START_OBJECT
+     * 目标对象的所有字段先被清空；字段值非法时仍会读完整个对象，解析器停在对应的 END_OBJECT，
+     * 便于流式调用方继续读取下一条记录
+     *
+     * @return 所有字段是否合法
+     * @throws IOException JSON 语法错误或读取失败
+     */
+    public boolean read(JsonParser parser, LogEntry target) throws IOException {
+        target.clear();
+        boolean valid = true;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    valid &= readText(parser, value, target::setId);
+                    break;
+                case "ip":
+                    valid &= readText(parser, value, target::setIp);
+                    break;
+                case "name":
+                    valid &= readText(parser, value, target::setName);
+                    break;
+                case "eventTime":
+                    valid &= readEventTime(parser, value, target);
+                    break;
+                case "randomNumber":
+                    valid &= readRandomNumber(parser, value, target);
+                    break;
+                case "processTime":
+                    valid &= readLong(parser, value, target, true);
+                    break;
+                case "delayTime":
+                    valid &= readLong(parser, value, target, false);
+                    break;
+                default:
+                    // 未知字段忽略，与 Spring Boot 默认的 FAIL_ON_UNKNOWN_PROPERTIES=false 一致
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return valid;
+    }
+
+    private interface TextSetter {
+        void set(String value);
+    }
+
+    private static boolean readText(JsonParser parser, JsonToken value, TextSetter setter) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            setter.set(null);
+            return true;
+        }
+        if (value.isScalarValue()) {
+            setter.set(parser.getText());
+            return true;
+        }
+        parser.skipChildren();
+        return false;
+    }
+
+    private static boolean readEventTime(JsonParser parser, JsonToken value, LogEntry target) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return true;
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            // 读取器可能被多个请求线程共享，使用线程内的解析器
+            LocalDateTime eventTime = EventTimeCodec.current().parse(
+                    parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            if (eventTime != null) {
+                target.setEventTime(eventTime);
+                return true;
+            }
+        }
+        return readEventTimeFallback(parser, target);
+    }
+
+    /**
+     * 先读完整个值再交给 ObjectCodec 转换，转换失败时解析器仍停在值的末尾
+     */
+    private static boolean readEventTimeFallback(JsonParser parser, LogEntry target) throws IOException {
+        ObjectCodec codec = parser.getCodec();
+        if (codec == null) {
+            parser.skipChildren();
+            return false;
+        }
+        TreeNode tree = parser.readValueAsTree();
+        try {
+            target.setEventTime(codec.treeToValue(tree, LocalDateTime.class));
+            return true;
+        } catch (JsonProcessingException | IllegalArgumentException | DateTimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean readRandomNumber(JsonParser parser, JsonToken value, LogEntry target) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return true;
+        }
+        try {
+            if (value == JsonToken.VALUE_NUMBER_INT) {
+                target.setRandomNumber(parser.getIntValue());
+                return true;
+            }
+            if (value == JsonToken.VALUE_STRING) {
+                target.setRandomNumber(Integer.valueOf(parser.getText().trim()));
+                return true;
+            }
+        } catch (JsonProcessingException | NumberFormatException e) {
+            return false;
+        }
+        parser.skipChildren();
+        return false;
+    }
+
+    private static boolean readLong(JsonParser parser, JsonToken value, LogEntry target,
+                                    boolean processTime) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return true;
+        }
+        Long number;
+        try {
+            if (value == JsonToken.VALUE_NUMBER_INT) {
+                number = parser.getLongValue();
+            } else if (value == JsonToken.VALUE_STRING) {
+                number = Long.valueOf(parser.getText().trim());
+            } else {
+                parser.skipChildren();
+                return false;
+            }
+        } catch (JsonProcessingException | NumberFormatException e) {
+            return false;
+        }
+        if (processTime) {
+            target.setProcessTime(number);
+        } else {
+            target.setDelayTime(number);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.logcollector.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import com.example.logcollector.model.LogEntry;
+
+/**
+ * 日志行编码器
+ * 将 LogEntry 按 ID|IP|时间|名称|随机数|处理时间|延迟时间 格式直接以 UTF-8 写入 ByteBuffer，
+ * 输出与 String.format("%s|%s|%s|%s|%d|%d|%d") 加换行符逐字节一致，稳态下不产生任何对象分配
+ * 事件时间集中在当前这一秒附近，与上一条相同时直接复制上一次编码的字节；实例持有该缓存，不是线程安全的
+ */
+public final class LogLineEncoder {
+    private static final byte SEPARATOR = '|';
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] LINE_SEPARATOR =
+            System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final int DATE_TIME_LENGTH = 16;             // yyyy-MM-ddTHH:mm
+    private static final int REPLACEMENT = '?';                 // 非法代理对的替换字符，与 String.getBytes 一致
+
+    private LocalDateTime lastDateTime;                         // 上一次编码的事件时间
+    private final byte[] lastDateTimeBytes = new byte[32];      // 上一次编码的结果，四位年份时最长 29 字节
+    private int lastDateTimeLength;
+
+    /**
+     * 计算编码后的字节数（含换行符），用于写入前预留缓冲区空间
+     */
+    public int encodedLength(LogEntry entry) {
+        return utf8Length(entry.getId())
+                + utf8Length(entry.getIp())
+                + dateTimeLength(entry.getEventTime())
+                + utf8Length(entry.getName())
+                + numberLength(entry.getRandomNumber())
+                + numberLength(entry.getProcessTime())
+                + numberLength(entry.getDelayTime())
+                + 6
+                + LINE_SEPARATOR.length;
+    }
+
+    /**
+     * 将日志条目编码写入目标缓冲区，调用方需保证剩余空间不小于 encodedLength
+     */
+    public void encode(LogEntry entry, ByteBuffer target) {
+        putString(target, entry.getId());
+        target.put(SEPARATOR);
+        putString(target, entry.getIp());
+        target.put(SEPARATOR);
+        putDateTime(target, entry.getEventTime());
+        target.put(SEPARATOR);
+        putString(target, entry.getName());
+        target.put(SEPARATOR);
+        putNumber(target, entry.getRandomNumber());
+        target.put(SEPARATOR);
+        putNumber(target, entry.getProcessTime());
+        target.put(SEPARATOR);
+        putNumber(target, entry.getDelayTime());
+        target.put(LINE_SEPARATOR);
+    }
+
+    private static int utf8Length(String value) {
+        if (value == null) {
+            return NULL.length;
+        }
+        int length = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static void putString(ByteBuffer target, String value) {
+        if (value == null) {
+            target.put(NULL);
+            return;
+        }
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                target.put((byte) c);
+            } else if (c < 0x800) {
+                target.put((byte) (0xC0 | (c >> 6)));
+                target.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                target.put((byte) (0xF0 | (codePoint >> 18)));
+                target.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                target.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                target.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                target.put((byte) REPLACEMENT);
+            } else {
+                target.put((byte) (0xE0 | (c >> 12)));
+                target.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                target.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * LocalDateTime.toString() 的长度：秒和纳秒为 0 时省略，纳秒按 3/6/9 位输出
+     */
+    private int dateTimeLength(LocalDateTime value) {
+        if (value == null) {
+            return NULL.length;
+        }
+        if (value.equals(lastDateTime)) {
+            return lastDateTimeLength;
+        }
+        if (!isFourDigitYear(value)) {
+            return value.toString().length();
+        }
+        int second = value.getSecond();
+        int nano = value.getNano();
+        if (second == 0 && nano == 0) {
+            return DATE_TIME_LENGTH;
+        }
+        return DATE_TIME_LENGTH + 3 + nanoLength(nano);
+    }
+
+    private void putDateTime(ByteBuffer target, LocalDateTime value) {
+        if (value == null) {
+            target.put(NULL);
+            return;
+        }
+        if (value.equals(lastDateTime)) {
+            target.put(lastDateTimeBytes, 0, lastDateTimeLength);
+            return;
+        }
+        if (!isFourDigitYear(value)) {
+            // 超出 0000-9999 的年份极少出现，直接沿用 toString 的格式
+            putString(target, value.toString());
+            return;
+        }
+        int start = target.position();
+        encodeDateTime(target, value);
+        // 记住编码结果，按绝对位置读取不影响 position
+        lastDateTimeLength = target.position() - start;
+        for (int i = 0; i < lastDateTimeLength; i++) {
+            lastDateTimeBytes[i] = target.get(start + i);
+        }
+        lastDateTime = value;
+    }
+
+    private static void encodeDateTime(ByteBuffer target, LocalDateTime value) {
+        putDigits(target, value.getYear(), 4);
+        target.put((byte) '-');
+        putDigits(target, value.getMonthValue(), 2);
+        target.put((byte) '-');
+        putDigits(target, value.getDayOfMonth(), 2);
+        target.put((byte) 'T');
+        putDigits(target, value.getHour(), 2);
+        target.put((byte) ':');
+        putDigits(target, value.getMinute(), 2);
+
+        int second = value.getSecond();
+        int nano = value.getNano();
+        if (second == 0 && nano == 0) {
+            return;
+        }
+        target.put((byte) ':');
+        putDigits(target, second, 2);
+        if (nano == 0) {
+            return;
+        }
+        target.put((byte) '.');
+        if (nano % 1000_000 == 0) {
+            putDigits(target, nano / 1000_000, 3);
+        } else if (nano % 1000 == 0) {
+            putDigits(target, nano / 1000, 6);
+        } else {
+            putDigits(target, nano, 9);
+        }
+    }
+
+    private static boolean isFourDigitYear(LocalDateTime value) {
+        int year = value.getYear();
+        return year >= 0 && year <= 9999;
+    }
+
+    private static int nanoLength(int nano) {
+        if (nano == 0) {
+            return 0;
+        }
+        if (nano % 1000_000 == 0) {
+            return 4;
+        }
+        return nano % 1000 == 0 ? 7 : 10;
+    }
+
+    private static int numberLength(Number value) {
+        if (value == null) {
+            return NULL.length;
+        }
+        long v = value.longValue();
+        if (v == Long.MIN_VALUE) {
+            return 20;
+        }
+        return v < 0 ? digitCount(-v) + 1 : digitCount(v);
+    }
+
+    private static void putNumber(ByteBuffer target, Number value) {
+        if (value == null) {
+            target.put(NULL);
+            return;
+        }
+        long v = value.longValue();
+        if (v == Long.MIN_VALUE) {
+            target.put((byte) '-').put((byte) '9');
+            putDigits(target, 223372036854775808L, 18);
+            return;
+        }
+        if (v < 0) {
+            target.put((byte) '-');
+            v = -v;
+        }
+        putDigits(target, v, digitCount(v));
+    }
+
+    /**
+     * 以固定位数写入非负整数，高位补 0
+     */
+    private static void putDigits(ByteBuffer target, long value, int digits) {
+        int end = target.position() + digits;
+        for (int i = end - 1; i >= end - digits; i--) {
+            target.put(i, (byte) ('0' + (value % 10)));
+            value /= 10;
+        }
+        target.position(end);
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
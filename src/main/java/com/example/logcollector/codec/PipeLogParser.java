@@ -0,0 +1,166 @@
+package com.example.logcollector.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import com.example.logcollector.model.LogEntry;
+
+/**
+ * 竖线分隔日志行的字节级解析器
+ * 格式：ID|IP|时间|名称|随机数，第 5 个字段之后的内容忽略，时间为 yyyy-MM-dd HH:mm:ss，随机数按 Integer.parseInt 的规则解析
+ * 直接扫描缓冲区中的字节定位分隔符并写入目标对象，不创建行字符串和字段数组，
+ * 时间由 EventTimeCodec、随机数按字节直接计算；只为最终保存在 LogEntry 中的 ID、IP、名称创建字符串
+ * 同一来源的相邻行常有相同的时间、IP 和名称，与上一行相同时直接复用上一行的对象（均不可变）
+ *
+ * 解析失败通过返回值表示，不抛出异常，原因由 failure() 给出；实例持有复制字段用的临时数组，不是线程安全的
+ */
+public final class PipeLogParser implements LineParser {
+    private static final byte SEPARATOR = '|';
+    private static final int FIELD_COUNT = 5;
+
+    private final int[] bounds = new int[FIELD_COUNT * 2];      // 各字段的起止位置
+    private byte[] scratch = new byte[256];                     // 直接缓冲区中字段内容的临时拷贝
+    private final EventTimeCodec timeCodec = new EventTimeCodec();  // 时间字段的解析器，缓存上一次的结果
+    private final LastString lastIp = new LastString();
+    private final LastString lastName = new LastString();
+    private RejectReason failure;                               // 最近一次解析失败的原因
+
+    /**
+     * 解析缓冲区中 [start, end) 范围内的一行，不含换行符；不修改缓冲区的 position 和 limit
+     * 目标对象的所有字段先被清空，解析失败时目标对象的内容不确定
+     *
+     * @return 是否解析成功
+     */
+    @Override
+    public boolean parse(ByteBuffer buffer, int start, int end, LogEntry target) {
+        target.clear();
+        if (!split(buffer, start, end)) {
+            failure = RejectReason.MISSING_FIELDS;
+            return false;
+        }
+        LocalDateTime eventTime = timeCodec.parse(buffer, bounds[4], bounds[5]);
+        if (eventTime == null) {
+            failure = RejectReason.INVALID_EVENT_TIME;
+            return false;
+        }
+        long randomNumber = parseInt(buffer, bounds[8], bounds[9]);
+        if (randomNumber == Long.MIN_VALUE) {
+            failure = RejectReason.INVALID_RANDOM_NUMBER;
+            return false;
+        }
+        target.setId(string(buffer, bounds[0], bounds[1]));
+        target.setIp(lastIp.get(buffer, bounds[2], bounds[3]));
+        target.setEventTime(eventTime);
+        target.setName(lastName.get(buffer, bounds[6], bounds[7]));
+        target.setRandomNumber((int) randomNumber);
+        return true;
+    }
+
+    @Override
+    public RejectReason failure() {
+        return failure;
+    }
+
+    /**
+     * 定位前 5 个字段的起止位置，字段不足 5 个时返回 false
+     */
+    private boolean split(ByteBuffer buffer, int start, int end) {
+        int field = 0;
+        int fieldStart = start;
+        for (int i = start; i < end && field < FIELD_COUNT - 1; i++) {
+            if (buffer.get(i) == SEPARATOR) {
+                bounds[field * 2] = fieldStart;
+                bounds[field * 2 + 1] = i;
+                field++;
+                fieldStart = i + 1;
+            }
+        }
+        if (field < FIELD_COUNT - 1) {
+            return false;
+        }
+        int fieldEnd = fieldStart;
+        while (fieldEnd < end && buffer.get(fieldEnd) != SEPARATOR) {
+            fieldEnd++;
+        }
+        bounds[8] = fieldStart;
+        bounds[9] = fieldEnd;
+        return true;
+    }
+
+    /**
+     * 按 Integer.parseInt 的规则解析整数，非法或溢出时返回 Long.MIN_VALUE
+     */
+    private static long parseInt(ByteBuffer buffer, int start, int end) {
+        if (start >= end) {
+            return Long.MIN_VALUE;
+        }
+        boolean negative = false;
+        int i = start;
+        byte first = buffer.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == end) {
+                return Long.MIN_VALUE;
+            }
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return Long.MIN_VALUE;
+            }
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+    }
+
+    private String string(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(start + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 记住上一次创建的字段字符串及其字节，字节相同时直接复用
+     */
+    private final class LastString {
+        private byte[] bytes = new byte[64];
+        private int length = -1;
+        private String value;
+
+        private String get(ByteBuffer buffer, int start, int end) {
+            int fieldLength = end - start;
+            if (fieldLength == length) {
+                int i = 0;
+                while (i < fieldLength && buffer.get(start + i) == bytes[i]) {
+                    i++;
+                }
+                if (i == fieldLength) {
+                    return value;
+                }
+            }
+            value = string(buffer, start, end);
+            if (bytes.length < fieldLength) {
+                bytes = new byte[Math.max(fieldLength, bytes.length * 2)];
+            }
+            for (int i = 0; i < fieldLength; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            length = fieldLength;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.logcollector.codec;
+
+/**
+ * 日志行被拒绝的原因，用于拒绝计数的 reason 标签和死信文件
+ */
+public enum RejectReason {
+    MISSING_FIELDS("missing-fields"),               // 不足 5 个字段
+    INVALID_EVENT_TIME("invalid-event-time"),       // 时间不是合法的 yyyy-MM-dd HH:mm:ss
+    INVALID_RANDOM_NUMBER("invalid-random-number"), // 随机数不是合法的 int
+    INVALID_JSON("invalid-json"),                   // JSON 行语法错误或字段值非法
+    LINE_TOO_LONG("line-too-long");                 // 超过行缓冲区，被整行丢弃
+
+    private final String tag;
+
+    RejectReason(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.logcollector.codec;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * tar 流的顺序读取器，用法与 ZipInputStream 相同：getNextEntry 定位到下一个普通文件，read 读到条目末尾返回 -1
+ * 支持 ustar 的前缀路径、GNU 长文件名（L）和 pax 扩展头中的 path，跳过目录、链接等其他类型的条目
+ * 记录读取到的位置：调用方在条目处理完成后记下 getEntryEnd()，重试时重新打开底层流跳到该位置，用新的读取器从下一个头继续
+ *
+ * 关闭时同时关闭底层流
+ */
+public final class TarEntryReader extends FilterInputStream {
+    private static final int BLOCK_SIZE = 512;
+    private static final int MAX_NAME_RECORD_BYTES = 64 * 1024;  // 长文件名和 pax 扩展头的大小上限
+
+    private final byte[] header = new byte[BLOCK_SIZE];
+    private long position;                                      // 在 tar 流中的位置
+    private long remaining;                                     // 当前条目未读的字节数
+    private long padding;                                       // 当前条目数据之后的填充字节数
+    private long entryStart;                                    // 当前条目的头的位置
+    private boolean finished;
+
+    /**
+     * @param in 位于某个头开始处的 tar 流
+     * @param position 该头在 tar 流中的位置
+     */
+    public TarEntryReader(InputStream in, long position) {
+        super(in);
+        this.position = position;
+    }
+
+    /**
+     * 跳过当前条目的剩余内容，定位到下一个普通文件
+     * @return 条目名，已到归档末尾时返回 null
+     * @throws IOException 读取失败、头校验和错误或流在条目中途结束
+     */
+    public String getNextEntry() throws IOException {
+        skipFully(remaining + padding);
+        remaining = 0;
+        padding = 0;
+        if (finished) {
+            return null;
+        }
+        String longName = null;
+        while (true) {
+            if (!readHeader()) {
+                finished = true;
+                return null;
+            }
+            long size = parseSize();
+            long dataPadding = (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+            byte type = header[156];
+            if (type == '0' || type == 0 || type == '7') {
+                String name = longName != null ? longName : headerName();
+                entryStart = position - BLOCK_SIZE;
+                remaining = size;
+                padding = dataPadding;
+                return name;
+            }
+            if (type == 'L' || type == 'x') {
+                if (size > MAX_NAME_RECORD_BYTES) {
+                    throw new IOException("Tar extended header at offset " + (position - BLOCK_SIZE) + " is too large");
+                }
+                byte[] data = new byte[(int) size];
+                readFully(data);
+                skipFully(dataPadding);
+                String name = type == 'L' ? cString(data, 0, data.length) : paxPath(data);
+                if (name != null) {
+                    longName = name;
+                }
+                continue;
+            }
+            // 目录、链接、全局 pax 头等：跳过内容，不影响下一个条目的文件名
+            skipFully(size + dataPadding);
+            if (type != 'g') {
+                longName = null;
+            }
+        }
+    }
+
+    /**
+     * 当前条目的头在 tar 流中的位置，在同一个归档中唯一，归档中有同名条目时用于区分
+     */
+    public long getEntryStart() {
+        return entryStart;
+    }
+
+    /**
+     * 当前条目（含填充）之后、下一个头在 tar 流中的位置
+     */
+    public long getEntryEnd() {
+        return position + remaining + padding;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Tar entry truncated");
+        }
+        remaining--;
+        position++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int read = in.read(b, off, (int) Math.min(len, remaining));
+        if (read < 0) {
+            throw new EOFException("Tar entry truncated");
+        }
+        remaining -= read;
+        position += read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * 读取一个头，遇到全零块（归档结束标记）或流结束时返回 false
+     */
+    private boolean readHeader() throws IOException {
+        int read = 0;
+        while (read < BLOCK_SIZE) {
+            int n = in.read(header, read, BLOCK_SIZE - read);
+            if (n < 0) {
+                if (read == 0) {
+                    return false;
+                }
+                throw new EOFException("Tar header truncated at offset " + position);
+            }
+            read += n;
+        }
+        long offset = position;
+        position += BLOCK_SIZE;
+        long sum = 0;
+        boolean zero = true;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            int b = header[i] & 0xff;
+            zero &= b == 0;
+            sum += i >= 148 && i < 156 ? ' ' : b;
+        }
+        if (zero) {
+            return false;
+        }
+        if (parseOctal(148, 8) != sum) {
+            throw new IOException("Invalid tar header checksum at offset " + offset);
+        }
+        return true;
+    }
+
+    private long parseSize() throws IOException {
+        if ((header[124] & 0x80) != 0) {
+            // GNU 的 base-256 编码，用于超过 8 GB 的条目
+            long size = header[124] & 0x7f;
+            for (int i = 125; i < 136; i++) {
+                size = size << 8 | (header[i] & 0xff);
+            }
+            return size;
+        }
+        long size = parseOctal(124, 12);
+        if (size < 0) {
+            throw new IOException("Invalid tar entry size at offset " + (position - BLOCK_SIZE));
+        }
+        return size;
+    }
+
+    /**
+     * 解析以空格或 NUL 结尾的八进制字段，非法时返回 -1
+     */
+    private long parseOctal(int offset, int length) {
+        long value = 0;
+        int i = offset;
+        int end = offset + length;
+        while (i < end && header[i] == ' ') {
+            i++;
+        }
+        for (; i < end; i++) {
+            byte b = header[i];
+            if (b == 0 || b == ' ') {
+                break;
+            }
+            if (b < '0' || b > '7') {
+                return -1;
+            }
+            value = value << 3 | (b - '0');
+        }
+        return value;
+    }
+
+    private String headerName() {
+        String name = cString(header, 0, 100);
+        boolean ustar = header[257] == 'u' && header[258] == 's' && header[259] == 't'
+                && header[260] == 'a' && header[261] == 'r';
+        if (ustar && header[345] != 0) {
+            return cString(header, 345, 155) + "/" + name;
+        }
+        return name;
+    }
+
+    /**
+     * pax 扩展头由 "长度 key=value\n" 记录组成，取其中的 path
+     */
+    private static String paxPath(byte[] data) {
+        int i = 0;
+        while (i < data.length) {
+            int space = i;
+            int length = 0;
+            while (space < data.length && data[space] >= '0' && data[space] <= '9') {
+                length = length * 10 + (data[space] - '0');
+                space++;
+            }
+            if (space >= data.length || data[space] != ' ' || length <= 0 || i + length > data.length) {
+                return null;
+            }
+            String record = new String(data, space + 1, i + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) {
+                return record.substring(5);
+            }
+            i += length;
+        }
+        return null;
+    }
+
+    private static String cString(byte[] bytes, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private void readFully(byte[] data) throws IOException {
+        int read = 0;
+        while (read < data.length) {
+            int n = in.read(data, read, data.length - read);
+            if (n < 0) {
+                throw new EOFException("Tar entry truncated at offset " + position);
+            }
+            read += n;
+            position += n;
+        }
+    }
+
+    private void skipFully(long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                // skip 可能在未到末尾时返回 0，用 read 确认
+                if (in.read() < 0) {
+                    throw new EOFException("Tar stream ended at offset " + position);
+                }
+                skipped = 1;
+            }
+            n -= skipped;
+            position += skipped;
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package com.example.logcollector.config;
 
-import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import com.example.logcollector.codec.EventTimeCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 @Configuration
@@ -15,8 +24,52 @@ public class JacksonConfig {
     @Bean
     public Jackson2ObjectMapperBuilderCustomizer jsonCustomizer() {
         return builder -> {
-            builder.serializers(new LocalDateTimeSerializer(DateTimeFormatter.ofPattern(dateTimeFormat)));
-            builder.deserializers(new LocalDateTimeDeserializer(DateTimeFormatter.ofPattern(dateTimeFormat)));
+            builder.serializers(new EventTimeSerializer());
+            builder.deserializers(new EventTimeDeserializer(
+                    new LocalDateTimeDeserializer(DateTimeFormatter.ofPattern(dateTimeFormat))));
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * 以 yyyy-MM-dd HH:mm:ss 输出 LocalDateTime，由当前线程的 EventTimeCodec 格式化
+     */
+    private static final class EventTimeSerializer extends StdSerializer<LocalDateTime> {
+        private EventTimeSerializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeString(EventTimeCodec.current().format(value));
+        }
+    }
+
+    /**
+     * 字符串形式的 yyyy-MM-dd HH:mm:ss 由当前线程的 EventTimeCodec 解析，
+     * 其余形式（数组、数字等）交给 jsr310 的默认实现，非法字符串的报错与默认实现一致
+     */
+    private static final class EventTimeDeserializer extends JsonDeserializer<LocalDateTime> {
+        private final LocalDateTimeDeserializer fallback;
+
+        private EventTimeDeserializer(LocalDateTimeDeserializer fallback) {
+            this.fallback = fallback;
+        }
+
+        @Override
+        public Class<?> handledType() {
+            return LocalDateTime.class;
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.hasToken(JsonToken.VALUE_STRING)) {
+                LocalDateTime value = EventTimeCodec.current().parse(
+                        parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                if (value != null) {
+                    return value;
+                }
+            }
+            return fallback.deserialize(parser, context);
+        }
+    }
+}
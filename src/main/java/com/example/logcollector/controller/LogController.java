@@ -1,37 +1,210 @@
 package com.example.logcollector.controller;
 
-import com.example.logcollector.model.LogEntry;
+import com.example.logcollector.model.BatchJobStatus;
+import com.example.logcollector.model.IngestResult;
+import com.example.logcollector.service.BatchJobService;
+import com.example.logcollector.service.InvalidLogException;
+import com.example.logcollector.service.LogRejectedException;
 import com.example.logcollector.service.LogService;
+import com.example.logcollector.service.StreamIngestService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @RestController
 @RequestMapping("/api/logs")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class LogController {
+    private static final ResponseEntity<String> SUCCESS = ResponseEntity.ok("Success");
+    private static final ResponseEntity<String> BATCH_TIMEOUT = ResponseEntity.accepted()
+            .body("Batch still processing; retrying would duplicate logs, use async=true for large uploads");
+    private static final int MAX_LOG_BYTES = 100 * 1024;           // 单条日志大小上限
+    private static final int INITIAL_BODY_BUFFER_SIZE = 4 * 1024;  // 请求体缓冲区初始大小
+    private static final ThreadLocal<byte[]> BODY_BUFFER =
+            ThreadLocal.withInitial(() -> new byte[INITIAL_BODY_BUFFER_SIZE]);  // 每个工作线程复用的请求体缓冲区
+
     private final LogService logService;
+    private final StreamIngestService streamIngestService;
+    private final BatchJobService batchJobService;
+    private final long batchRequestTimeoutMs;   // 同步批量上报等待处理完成的时间上限
 
-    public LogController(LogService logService) {
+    public LogController(LogService logService, StreamIngestService streamIngestService,
+                         BatchJobService batchJobService,
+                         @Value("${log-collector.batch.request-timeout-ms:600000}") long batchRequestTimeoutMs) {
         this.logService = logService;
+        this.streamIngestService = streamIngestService;
+        this.batchJobService = batchJobService;
+        this.batchRequestTimeoutMs = batchRequestTimeoutMs;
     }
 
+    /**
+     * 实时日志上报
+     * 请求体读入工作线程复用的缓冲区后直接解析到 RingBuffer 槽位，不经过 LogEntry 绑定；
+     * 返回 CompletableFuture，RingBuffer 已满排队等待空位、以及等待写入确认期间都不占用 Tomcat 工作线程
+     */
     @PostMapping("/realtime")
-    public ResponseEntity<String> handleRealtimeLog(@RequestBody LogEntry logEntry) {
+    public CompletableFuture<ResponseEntity<String>> handleRealtimeLog(HttpServletRequest request) throws IOException {
+        int length = readBody(request);
+        if (length < 0) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("Log entry exceeds " + MAX_LOG_BYTES + " bytes"));
+        }
+        CompletableFuture<Void> ack;
         try {
-            logService.processRealtimeLog(logEntry);
-            return ResponseEntity.ok("Success");
+            ack = logService.processRealtimeJson(BODY_BUFFER.get(), length);
+        } catch (InvalidLogException e) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body("Invalid log entry: " + e.getMessage()));
+        } catch (LogRejectedException e) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Log rejected: " + e.getMessage()));
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().body("Failed to process log: " + e.getMessage());
+            return CompletableFuture.completedFuture(failure(e));
+        }
+        return ack.handle((ignored, e) -> e == null ? SUCCESS : failure(e));
+    }
+
+    /**
+     * 将请求体读入当前线程的缓冲区，缓冲区按需扩容到单条日志上限
+     * @return 请求体长度，超过上限时返回 -1
+     */
+    private static int readBody(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > MAX_LOG_BYTES) {
+            return -1;
+        }
+        byte[] buffer = BODY_BUFFER.get();
+        int length = 0;
+        try (InputStream in = request.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+                if (length == buffer.length) {
+                    if (buffer.length > MAX_LOG_BYTES) {
+                        return -1;
+                    }
+                    // 多留一个字节，用于判断请求体是否超过上限
+                    buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, MAX_LOG_BYTES + 1));
+                    BODY_BUFFER.set(buffer);
+                }
+            }
         }
+        return length;
     }
 
+    private static ResponseEntity<String> failure(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return ResponseEntity.internalServerError().body("Failed to process log: " + cause.getMessage());
+    }
+
+    /**
+     * NDJSON 流式批量上报，支持 Content-Encoding: gzip
+     * 返回成功与拒绝的条数；请求体中途无法解析时返回 400，已接收的日志不会回滚
+     */
+    @PostMapping("/stream")
+    public ResponseEntity<IngestResult> handleStream(HttpServletRequest request) throws IOException {
+        boolean gzip = "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        IngestResult result = streamIngestService.processStream(request.getInputStream(), gzip);
+        return result.getError() == null
+                ? ResponseEntity.ok(result)
+                : ResponseEntity.badRequest().body(result);
+    }
+
+    /**
+     * 压缩包原始请求体批量上报，Content-Type 为 ZIP、gzip、tar 或 NDJSON，实际格式按魔数识别
+     * 请求体不经过 multipart 解析和临时文件，边接收边解压发布；返回成功与拒绝的条数，
+     * Content-Length 超过大小上限时返回 413；分块上传在读取中途超过上限、请求体无法读取或压缩包损坏时返回 400，
+     * 已接收的日志不会回滚
+     */
+    @PostMapping(value = "/batch", consumes = {"application/zip", "application/gzip", "application/x-gzip",
+            "application/x-tar", "application/x-gtar", "application/x-ndjson"})
+    public ResponseEntity<IngestResult> handleArchiveStream(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > streamIngestService.getMaxZipRequestBytes()) {
+            IngestResult result = new IngestResult();
+            result.setError("Request body exceeds " + streamIngestService.getMaxZipRequestBytes() + " bytes");
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(result);
+        }
+        IngestResult result = streamIngestService.processArchiveStream(request.getInputStream(), request.getContentType());
+        return result.getError() == null
+                ? ResponseEntity.ok(result)
+                : ResponseEntity.badRequest().body(result);
+    }
+
+    /**
+     * 批量上报，处理完成前不占用 Tomcat 工作线程，条目失败后的重试等待同样不占用线程
+     * 使用单独的超时而不是全局的异步请求超时（默认 30 秒）：超时后处理仍在继续，返回 202 而不是 503，
+     * 避免客户端把仍在写入的压缩包当作失败重传
+     */
     @PostMapping("/batch")
-    public ResponseEntity<String> handleBatchLogs(@RequestParam("file") MultipartFile zipFile) {
+    public DeferredResult<ResponseEntity<String>> handleBatchLogs(@RequestParam("file") MultipartFile zipFile) {
+        DeferredResult<ResponseEntity<String>> result = new DeferredResult<>(batchRequestTimeoutMs, BATCH_TIMEOUT);
+        logService.processBatchLogs(zipFile).handle((ignored, e) -> {
+            result.setResult(e == null ? SUCCESS : batchFailure(e));
+            return null;
+        });
+        return result;
+    }
+
+    /**
+     * 异步批量上报，压缩包暂存后立即返回 202 和任务状态，Location 指向状态查询地址
+     * 等待处理的任务数已达上限时返回 503
+     */
+    @PostMapping(value = "/batch", params = "async=true")
+    public ResponseEntity<?> handleBatchJob(@RequestParam("file") MultipartFile zipFile) {
+        return submitBatchJob(zipFile, zipFile.getContentType());
+    }
+
+    /**
+     * 异步批量上报，压缩包以原始请求体上传，Content-Type 与同步的原始请求体上报一致；
+     * 请求体直接写入暂存目录，Content-Length 超过大小上限时返回 413
+     */
+    @PostMapping(value = "/batch", params = "async=true", consumes = {"application/zip", "application/gzip",
+            "application/x-gzip", "application/x-tar", "application/x-gtar", "application/x-ndjson"})
+    public ResponseEntity<?> handleArchiveJob(HttpServletRequest request) {
+        if (request.getContentLengthLong() > streamIngestService.getMaxZipRequestBytes()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body("Request body exceeds " + streamIngestService.getMaxZipRequestBytes() + " bytes");
+        }
+        return submitBatchJob(request::getInputStream, request.getContentType());
+    }
+
+    private ResponseEntity<?> submitBatchJob(InputStreamSource upload, String contentType) {
         try {
-            logService.processBatchLogs(zipFile);
-            return ResponseEntity.ok("Success");
+            BatchJobStatus status = batchJobService.submit(upload, contentType);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/logs/batch/" + status.getId()))
+                    .body(status);
+        } catch (LogRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Batch rejected: " + e.getMessage());
         } catch (Exception e) {
-            return ResponseEntity.internalServerError().body("Failed to process batch logs: " + e.getMessage());
+            return ResponseEntity.internalServerError().body("Failed to spool batch logs: " + e.getMessage());
         }
     }
+
+    /**
+     * 异步批量任务的状态：进度、成功与拒绝的条数、处理速率
+     */
+    @GetMapping("/batch/{id}")
+    public ResponseEntity<BatchJobStatus> getBatchJob(@PathVariable("id") String id) {
+        BatchJobStatus status = batchJobService.getStatus(id);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+    private static ResponseEntity<String> batchFailure(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return ResponseEntity.internalServerError().body("Failed to process batch logs: " + cause.getMessage());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,298 @@
+package com.example.logcollector.ingest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.example.logcollector.buffer.DirectBufferPool;
+import com.example.logcollector.codec.PipeLogParser;
+import com.example.logcollector.service.LogService;
+
+/**
+ * TCP 行协议接入
+ * 客户端以换行分隔发送 ID|IP|时间|名称|随机数 格式的日志，格式与批量上报的 ZIP 内容一致
+ * 单个 Selector 线程负责接收连接和读取：每个连接从 DirectBufferPool 借一块读缓冲区，
+ * 在缓冲区中按换行符切分，逐行直接解析到 RingBuffer 槽位，不创建行字符串
+ *
+ * 流量控制：RingBuffer 剩余空位低于 ring-low-watermark 时取消所有连接的读事件，
+ * 数据留在内核缓冲区中，由 TCP 流控传回客户端；空位恢复后重新开始读取
+ *
+ * 行数、字节数和丢弃数按监听端口汇总，不按客户端地址打标签，避免频繁重连使指标数量无限增长；
+ * 单个连接的统计在连接关闭时写入 DEBUG 日志
+ */
+@Component
+@ConditionalOnProperty(name = "log-collector.tcp.enabled", havingValue = "true")
+public class TcpLineListener {
+    private static final Logger log = LoggerFactory.getLogger(TcpLineListener.class);
+    private static final long SELECT_TIMEOUT_MS = 100;            // 正常读取时的 select 超时
+    private static final long PAUSED_SELECT_TIMEOUT_MS = 5;       // 暂停读取时检查空位的间隔
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final LogService logService;
+    private final DirectBufferPool bufferPool;
+    private final int readBufferSize;                             // 每个连接的读缓冲区大小，也是单行长度上限
+    private final long ringLowWatermark;                          // 暂停读取的 RingBuffer 剩余空位阈值
+    private final PipeLogParser parser = new PipeLogParser();     // 仅 Selector 线程使用
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread selectorThread;
+    private final AtomicInteger connectionCount = new AtomicInteger();  // 当前连接数
+    private final Counter pauses;                                 // 因 RingBuffer 将满暂停读取的次数
+    private final Counter lines;                                  // 已发布的行数
+    private final Counter bytes;                                  // 已读取的字节数
+    private final Counter rejected;                               // 解析失败或超长而丢弃的行数
+    private volatile boolean running = true;
+    private boolean paused;                                       // 当前是否暂停读取，仅 Selector 线程访问
+
+    public TcpLineListener(LogService logService,
+                           DirectBufferPool bufferPool,
+                           MeterRegistry meterRegistry,
+                           @Value("${log-collector.tcp.port:5140}") int port,
+                           @Value("${log-collector.tcp.read-buffer-size:65536}") int readBufferSize,
+                           @Value("${log-collector.tcp.ring-low-watermark:4096}") long ringLowWatermark) {
+        this.logService = logService;
+        this.bufferPool = bufferPool;
+        this.readBufferSize = readBufferSize;
+        this.ringLowWatermark = ringLowWatermark;
+
+        Gauge.builder("logcollector.tcp.connections", connectionCount, AtomicInteger::get)
+                .register(meterRegistry);
+        this.pauses = meterRegistry.counter("logcollector.tcp.pauses");
+        String portTag = String.valueOf(port);
+        this.lines = meterRegistry.counter("logcollector.tcp.lines", "port", portTag);
+        this.bytes = meterRegistry.counter("logcollector.tcp.bytes", "port", portTag);
+        this.rejected = meterRegistry.counter("logcollector.tcp.rejected", "port", portTag);
+
+        try {
+            this.selector = Selector.open();
+            this.serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port), 1024);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to bind TCP listener on port " + port, e);
+        }
+
+        this.selectorThread = new Thread(this::run, "LogTcpListener");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                updateFlowControl();
+                selector.select(paused ? PAUSED_SELECT_TIMEOUT_MS : SELECT_TIMEOUT_MS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read((Connection) key.attachment());
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        closeAll();
+    }
+
+    /**
+     * RingBuffer 剩余空位跨过阈值时切换所有连接的读事件
+     */
+    private void updateFlowControl() {
+        boolean low = logService.remainingCapacity() < ringLowWatermark;
+        if (low == paused) {
+            return;
+        }
+        paused = low;
+        if (low) {
+            pauses.increment();
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid() && key.attachment() instanceof Connection) {
+                key.interestOps(low ? 0 : SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            ByteBuffer buffer;
+            try {
+                buffer = bufferPool.lease(readBufferSize);
+            } catch (IllegalStateException e) {
+                // 堆外缓冲区已耗尽，拒绝该连接
+                channel.close();
+                e.printStackTrace();
+                continue;
+            }
+            channel.configureBlocking(false);
+            Connection connection = new Connection(channel, buffer, channel.getRemoteAddress());
+            connection.key = channel.register(selector, paused ? 0 : SelectionKey.OP_READ, connection);
+            connectionCount.incrementAndGet();
+        }
+    }
+
+    private void read(Connection connection) {
+        int read;
+        try {
+            read = connection.channel.read(connection.buffer);
+        } catch (IOException e) {
+            close(connection);
+            return;
+        }
+        if (read == -1) {
+            // 连接关闭时最后一行可能没有换行符，与 readLine 一致按完整的一行处理
+            ByteBuffer buffer = connection.buffer;
+            if (buffer.position() > 0 && !connection.discarding) {
+                publishLine(connection, 0, buffer.position());
+            }
+            close(connection);
+            return;
+        }
+        bytes.increment(read);
+        connection.bytes += read;
+        processLines(connection);
+    }
+
+    /**
+     * 处理缓冲区中所有完整的行，剩余的半行移到缓冲区开头
+     * 单行超过缓冲区容量时丢弃该行，直到下一个换行符
+     */
+    private void processLines(Connection connection) {
+        ByteBuffer buffer = connection.buffer;
+        int limit = buffer.position();
+        int lineStart = 0;
+        for (int i = connection.scanned; i < limit; i++) {
+            if (buffer.get(i) == LINE_FEED) {
+                if (connection.discarding) {
+                    connection.discarding = false;
+                } else {
+                    publishLine(connection, lineStart, i);
+                }
+                lineStart = i + 1;
+            }
+        }
+
+        if (lineStart > 0) {
+            buffer.limit(limit).position(lineStart);
+            buffer.compact();
+        } else if (!buffer.hasRemaining()) {
+            if (!connection.discarding) {
+                rejected.increment();
+                connection.rejected++;
+                connection.discarding = true;
+            }
+            buffer.clear();
+        }
+        connection.scanned = buffer.position();
+    }
+
+    private void publishLine(Connection connection, int start, int end) {
+        if (end > start && connection.buffer.get(end - 1) == CARRIAGE_RETURN) {
+            end--;
+        }
+        if (end == start) {
+            return;
+        }
+        if (logService.processBulkLine(parser, connection.buffer, start, end)) {
+            lines.increment();
+            connection.lines++;
+        } else {
+            rejected.increment();
+            connection.rejected++;
+        }
+    }
+
+    private void close(Connection connection) {
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        bufferPool.release(connection.buffer);
+        connectionCount.decrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("TCP connection {} closed after {} ms: {} lines, {} bytes, {} rejected",
+                    connection.remote, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connection.openedAt),
+                    connection.lines, connection.bytes, connection.rejected);
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                close((Connection) key.attachment());
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 单个客户端连接，仅 Selector 线程访问
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer buffer;                          // 从池中借出的读缓冲区
+        private final SocketAddress remote;                       // 客户端地址，只用于关闭时的日志
+        private final long openedAt = System.nanoTime();          // 建立连接的时间
+        private long lines;                                       // 本连接已发布的行数
+        private long bytes;                                       // 本连接已读取的字节数
+        private long rejected;                                    // 本连接丢弃的行数
+        private SelectionKey key;
+        private int scanned;                                      // 已扫描过换行符的位置
+        private boolean discarding;                               // 是否正在丢弃超长行
+
+        private Connection(SocketChannel channel, ByteBuffer buffer, SocketAddress remote) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.remote = remote;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.logcollector.ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.example.logcollector.buffer.DirectBufferPool;
+import com.example.logcollector.codec.BatchLineParser;
+import com.example.logcollector.model.LogEntry;
+import com.example.logcollector.service.LogService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * UDP 数据报接入，用于允许丢失的高频上报
+ * 每个数据报包含一行或多行日志，以换行分隔；与批量上报相同，以 { 开头的行按 JSON 解析，其余按 ID|IP|时间|名称|随机数 解析
+ * 支持 SO_REUSEPORT 时每个接收线程绑定一个独立的 DatagramChannel，由内核按来源分散数据报；
+ * 不支持时退化为单个接收线程
+ *
+ * 每个数据报的所有行一次占用连续的 RingBuffer 空位，直接解析到槽位后整体发布；
+ * 空位不足时不等待，整个数据报计为丢弃，避免接收线程阻塞导致内核接收缓冲区溢出
+ * 内核丢弃数从 /proc/net/udp 中本端口所有套接字的 drops 列读取，用于调整 receive-buffer-size；
+ * 该值只增不减，作为计数器注册，读取结果缓存一秒，多次抓取指标时不重复解析
+ */
+@Component
+@ConditionalOnProperty(name = "log-collector.udp.enabled", havingValue = "true")
+public class UdpDatagramReceiver {
+    private static final int MAX_DATAGRAM_SIZE = 65507;           // IPv4 UDP 负载上限
+    private static final Path[] PROC_NET_UDP = {Paths.get("/proc/net/udp"), Paths.get("/proc/net/udp6")};
+    private static final long KERNEL_DROPS_CACHE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LogService logService;
+    private final DirectBufferPool bufferPool;
+    private final JsonFactory jsonFactory;
+    private final int port;
+    private final String localPortSuffix;                         // /proc/net/udp 中本端口 local_address 的结尾
+    private final List<DatagramChannel> channels = new ArrayList<>();
+    private final List<Thread> receivers = new ArrayList<>();
+    private final Counter datagrams;                              // 已接收的数据报数
+    private final Counter lines;                                  // 已发布的日志行数
+    private final Counter rejected;                               // 解析失败的行数
+    private final Counter ringDropped;                            // 因 RingBuffer 空位不足而丢弃的行数
+    private volatile boolean running = true;
+    private long kernelDrops;                                     // 最近一次读取的内核丢弃数
+    private long kernelDropsReadAt;                               // 最近一次读取的时间
+
+    public UdpDatagramReceiver(LogService logService,
+                               DirectBufferPool bufferPool,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${log-collector.udp.port:5141}") int port,
+                               @Value("${log-collector.udp.receivers:0}") int receiverCount,
+                               @Value("${log-collector.udp.receive-buffer-size:4194304}") int receiveBufferSize) {
+        this.logService = logService;
+        this.bufferPool = bufferPool;
+        this.jsonFactory = objectMapper.getFactory();
+        this.port = port;
+        this.localPortSuffix = String.format(":%04X", port);
+        this.kernelDropsReadAt = System.nanoTime() - KERNEL_DROPS_CACHE_NANOS;
+
+        this.datagrams = meterRegistry.counter("logcollector.udp.datagrams");
+        this.lines = meterRegistry.counter("logcollector.udp.lines");
+        this.rejected = meterRegistry.counter("logcollector.udp.rejected");
+        this.ringDropped = meterRegistry.counter("logcollector.udp.dropped.ring");
+        FunctionCounter.builder("logcollector.udp.dropped.kernel", this, UdpDatagramReceiver::kernelDrops)
+                .register(meterRegistry);
+
+        int count = receiverCount > 0 ? receiverCount : Runtime.getRuntime().availableProcessors();
+        try {
+            DatagramChannel first = open(receiveBufferSize, count > 1);
+            channels.add(first);
+            if (count > 1 && !first.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+                System.err.println("SO_REUSEPORT is not supported, falling back to a single UDP receiver");
+                count = 1;
+            }
+            for (int i = 1; i < count; i++) {
+                channels.add(open(receiveBufferSize, true));
+            }
+        } catch (IOException e) {
+            closeChannels();
+            throw new RuntimeException("Failed to bind UDP receiver on port " + port, e);
+        }
+
+        for (int i = 0; i < channels.size(); i++) {
+            DatagramChannel channel = channels.get(i);
+            Thread thread = new Thread(() -> receive(channel), "LogUdpReceiver-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            receivers.add(thread);
+        }
+    }
+
+    private DatagramChannel open(int receiveBufferSize, boolean reusePort) throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        try {
+            if (reusePort && channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+                channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+            channel.bind(new InetSocketAddress(port));
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 接收线程主循环，阻塞接收直到通道被关闭
+     */
+    private void receive(DatagramChannel channel) {
+        ByteBuffer buffer = bufferPool.lease(MAX_DATAGRAM_SIZE);
+        DatagramBatch batch = new DatagramBatch(buffer);
+        try {
+            while (running) {
+                buffer.clear();
+                try {
+                    channel.receive(buffer);
+                } catch (ClosedChannelException e) {
+                    break;
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    continue;
+                }
+                datagrams.increment();
+                int count = batch.split(buffer.position());
+                if (count == 0) {
+                    continue;
+                }
+                int accepted = logService.tryProcessBulkBatch(count, batch);
+                if (accepted < 0) {
+                    ringDropped.increment(count);
+                } else {
+                    lines.increment(accepted);
+                    rejected.increment(count - accepted);
+                }
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * 读取内核因接收缓冲区已满而丢弃的数据报数，取本端口所有套接字之和
+     * 一秒内重复调用时返回缓存的结果；无法读取时保持上一次的值，未曾读取成功时为 0
+     */
+    private synchronized double kernelDrops() {
+        long now = System.nanoTime();
+        if (now - kernelDropsReadAt < KERNEL_DROPS_CACHE_NANOS) {
+            return kernelDrops;
+        }
+        kernelDropsReadAt = now;
+        long drops = 0;
+        boolean found = false;
+        for (Path path : PROC_NET_UDP) {
+            if (!Files.isReadable(path)) {
+                continue;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(path)) {
+                long portDrops = parseDrops(reader, localPortSuffix);
+                if (portDrops >= 0) {
+                    drops += portDrops;
+                    found = true;
+                }
+            } catch (IOException | NumberFormatException e) {
+                return kernelDrops;
+            }
+        }
+        if (found) {
+            kernelDrops = Math.max(kernelDrops, drops);
+        }
+        return kernelDrops;
+    }
+
+    /**
+     * 解析 /proc/net/udp 或 /proc/net/udp6 的内容，累加 local_address 以 localPortSuffix 结尾的套接字的 drops 列
+     * @param localPortSuffix 冒号加 4 位大写 16 进制端口，如 :1415
+     * @return 丢弃数之和，没有本端口的套接字时返回 -1
+     * @throws NumberFormatException drops 列不是数字
+     */
+    static long parseDrops(BufferedReader reader, String localPortSuffix) throws IOException {
+        long drops = 0;
+        boolean found = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            // 只拆分包含本端口的行，其他套接字的行直接跳过
+            if (!line.contains(localPortSuffix)) {
+                continue;
+            }
+            // sl local_address rem_address st tx_queue:rx_queue tr:tm->when retrnsmt uid timeout inode ref pointer drops
+            String[] columns = line.trim().split("\\s+");
+            if (columns.length >= 13 && columns[1].endsWith(localPortSuffix)) {
+                drops += Long.parseLong(columns[columns.length - 1]);
+                found = true;
+            }
+        }
+        return found ? drops : -1;
+    }
+
+    /**
+     * 单个数据报中的日志行，仅所属接收线程访问
+     * 切分和按行解析与批量上报共用 BatchLineParser，作为 EntryFiller 按行号把对应的行直接解析到槽位
+     */
+    private final class DatagramBatch implements LogService.EntryFiller {
+        private final ByteBuffer buffer;
+        private final BatchLineParser parser = new BatchLineParser(jsonFactory);
+
+        private DatagramBatch(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * @return 数据报 [0, length) 中的行数
+         */
+        private int split(int length) {
+            return parser.split(buffer, length);
+        }
+
+        @Override
+        public boolean fill(int index, LogEntry target) {
+            return parser.parseLine(index, target);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        closeChannels();
+        for (Thread receiver : receivers) {
+            try {
+                receiver.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void closeChannels() {
+        for (DatagramChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.logcollector.model;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 异步批量任务的状态快照，既是状态查询接口的返回内容，也以 JSON 形式保存在暂存目录中用于重启恢复
+ */
+public class BatchJobStatus {
+    /**
+     * 任务状态
+     */
+    public enum State {
+        QUEUED,     // 已暂存，等待处理
+        RUNNING,    // 处理中
+        SUCCEEDED,  // 所有条目处理完成
+        FAILED      // 有条目重试耗尽或压缩包无法打开
+    }
+
+    private String id;
+    private State state;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;          // 最近一次开始处理的时间，重启恢复后重新计时
+    private LocalDateTime finishedAt;
+    private long archiveBytes;                // 压缩包大小
+    private String contentType;               // 上传时的 Content-Type，识别格式时参考
+    private int entriesTotal;                 // 条目总数，开始处理前为 0，tar 格式无法预知时为 -1
+    private int entriesCompleted;             // 已完成的条目数
+    private long accepted;                    // 成功发布的日志数
+    private long rejected;                    // 无法解析而被丢弃的日志数
+    private double linesPerSecond;            // 最近一次处理期间的平均速率
+    private String error;                     // 失败原因
+    private Map<String, long[]> completedEntries = new LinkedHashMap<>();  // 已完成条目 -> [成功数, 拒绝数]
+    private Map<String, long[]> entryCheckpoints = new LinkedHashMap<>();  // 处理到一半的条目 -> 检查点，格式见 BatchProgress.onCheckpoint
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getArchiveBytes() {
+        return archiveBytes;
+    }
+
+    public void setArchiveBytes(long archiveBytes) {
+        this.archiveBytes = archiveBytes;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public int getEntriesTotal() {
+        return entriesTotal;
+    }
+
+    public void setEntriesTotal(int entriesTotal) {
+        this.entriesTotal = entriesTotal;
+    }
+
+    public int getEntriesCompleted() {
+        return entriesCompleted;
+    }
+
+    public void setEntriesCompleted(int entriesCompleted) {
+        this.entriesCompleted = entriesCompleted;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(long accepted) {
+        this.accepted = accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public double getLinesPerSecond() {
+        return linesPerSecond;
+    }
+
+    public void setLinesPerSecond(double linesPerSecond) {
+        this.linesPerSecond = linesPerSecond;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Map<String, long[]> getCompletedEntries() {
+        return completedEntries;
+    }
+
+    public void setCompletedEntries(Map<String, long[]> completedEntries) {
+        this.completedEntries = completedEntries;
+    }
+
+    public Map<String, long[]> getEntryCheckpoints() {
+        return entryCheckpoints;
+    }
+
+    public void setEntryCheckpoints(Map<String, long[]> entryCheckpoints) {
+        this.entryCheckpoints = entryCheckpoints;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.logcollector.model;
+
+/**
+ * 批量接入的处理结果
+ */
+public class IngestResult {
+    private long accepted;      // 成功发布的日志数
+    private long rejected;      // 无法解析而被丢弃的日志数
+    private String error;       // 请求体无法继续读取时的错误信息，正常结束时为 null
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(long accepted) {
+        this.accepted = accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "IngestResult{" +
+                "accepted=" + accepted +
+                ", rejected=" + rejected +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -76,6 +76,32 @@ public class LogEntry {
         this.delayTime = delayTime;
     }
 
+    /**
+     * 复制另一条日志的全部字段，用于写入 RingBuffer 中预分配的槽位
+     */
+    public void copyFrom(LogEntry other) {
+        this.id = other.id;
+        this.ip = other.ip;
+        this.eventTime = other.eventTime;
+        this.name = other.name;
+        this.randomNumber = other.randomNumber;
+        this.processTime = other.processTime;
+        this.delayTime = other.delayTime;
+    }
+
+    /**
+     * 清空全部字段，复用的槽位在重新填充前调用，避免残留上一条日志的内容
+     */
+    public void clear() {
+        this.id = null;
+        this.ip = null;
+        this.eventTime = null;
+        this.name = null;
+        this.randomNumber = null;
+        this.processTime = null;
+        this.delayTime = null;
+    }
+
     @Override
     public String toString() {
         return "LogEntry{" +
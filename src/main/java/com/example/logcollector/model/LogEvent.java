@@ -0,0 +1,43 @@
+package com.example.logcollector.model;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * RingBuffer 中的事件槽位
+ * 预分配的 LogEntry 承载日志内容，ack 在需要确认写入结果时由发布方设置，写线程完成提交后回调；
+ * 请求体直接解析到槽位时，解析失败的槽位仍须发布，valid 为 false，写线程直接跳过
+ */
+public class LogEvent {
+    private final LogEntry entry = new LogEntry();
+    private CompletableFuture<Void> ack;      // 写入确认，不需要确认时为 null
+    private int shard;                        // 负责写入该事件的分片
+    private boolean valid;                    // 槽位内容是否为有效日志
+
+    public LogEntry getEntry() {
+        return entry;
+    }
+
+    public CompletableFuture<Void> getAck() {
+        return ack;
+    }
+
+    public void setAck(CompletableFuture<Void> ack) {
+        this.ack = ack;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+}
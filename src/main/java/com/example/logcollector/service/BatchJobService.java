@@ -0,0 +1,366 @@
+package com.example.logcollector.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.logcollector.model.BatchJobStatus;
+import com.example.logcollector.model.BatchJobStatus.State;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 异步批量任务
+ * 上传的压缩包（ZIP、gzip、tar、tar.gz 或文本，见 LogService.processBatchLogs）保存到暂存目录后立即返回任务 ID，由固定数量的任务线程依次交给 LogService 并行处理；
+ * 每个任务在暂存目录中对应 ID.spool 和 ID.json 两个文件，状态在提交、开始、每个条目完成和结束时写入 ID.json；
+ * 暂存文件按原样保存，不论格式都使用同一后缀，处理时按开头的魔数和 ID.json 中记录的 Content-Type 识别
+ *
+ * 重启后未结束的任务重新排队，已完成的条目被跳过，处理到一半的条目从保存的检查点继续；
+ * 检查点每隔 CHECKPOINT_PERSIST_INTERVAL_MS 至多保存一次，保存之后发布的日志会重复一次。
+ * 已完成的条目和检查点记录的是已发布到 RingBuffer 的进度，进程崩溃时 RingBuffer 中尚未写入的日志不会重新处理；
+ * 结束的任务删除压缩包，状态文件保留 retention-hours 供查询，过期的任务按 purge-interval-ms 定时清理
+ */
+@Service
+public class BatchJobService {
+    private static final String ARCHIVE_SUFFIX = ".spool";
+    private static final String STATUS_SUFFIX = ".json";
+    private static final long CHECKPOINT_PERSIST_INTERVAL_MS = 1000;  // 检查点推进时写入状态文件的最小间隔
+
+    private final LogService logService;
+    private final ObjectMapper objectMapper;
+    private final Path spoolDir;                                  // 暂存目录
+    private final int maxQueuedJobs;                              // 等待处理的任务数上限
+    private final Duration retention;                             // 结束的任务状态保留时间
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor jobExecutor;
+    private volatile boolean running = true;
+
+    public BatchJobService(LogService logService,
+                           ObjectMapper objectMapper,
+                           @Value("${log-collector.batch.jobs.spool-dir:spool/batch}") String spoolDir,
+                           @Value("${log-collector.batch.jobs.concurrency:2}") int concurrency,
+                           @Value("${log-collector.batch.jobs.max-queued:64}") int maxQueuedJobs,
+                           @Value("${log-collector.batch.jobs.retention-hours:24}") long retentionHours) throws IOException {
+        this.logService = logService;
+        this.objectMapper = objectMapper;
+        this.spoolDir = Paths.get(spoolDir).toAbsolutePath();
+        this.maxQueuedJobs = maxQueuedJobs;
+        this.retention = Duration.ofHours(retentionHours);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.jobExecutor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "LogBatchJob-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Files.createDirectories(this.spoolDir);
+        recover();
+    }
+
+    /**
+     * 暂存压缩包并排队，立即返回排队状态
+     * @param contentType 上传内容的 Content-Type，未知时为 null
+     * @throws LogRejectedException 等待处理的任务数已达上限
+     * @throws IOException 压缩包无法写入暂存目录
+     */
+    public BatchJobStatus submit(InputStreamSource upload, String contentType) throws IOException {
+        if (jobExecutor.getQueue().size() >= maxQueuedJobs) {
+            throw new LogRejectedException("Batch job queue is full");
+        }
+        String id = UUID.randomUUID().toString();
+        Path archive = archivePath(id);
+        try {
+            LogService.spool(upload, archive);
+            BatchJobStatus status = new BatchJobStatus();
+            status.setId(id);
+            status.setState(State.QUEUED);
+            status.setSubmittedAt(LocalDateTime.now());
+            status.setArchiveBytes(Files.size(archive));
+            status.setContentType(contentType);
+            Job job = new Job(status);
+            // 状态文件在压缩包完整写入后才出现，恢复时只认有状态文件的任务
+            job.persist();
+            jobs.put(id, job);
+            jobExecutor.execute(() -> run(job));
+            return job.snapshot();
+        } catch (IOException | RuntimeException e) {
+            jobs.remove(id);
+            Files.deleteIfExists(statusPath(id));
+            Files.deleteIfExists(archive);
+            throw e;
+        }
+    }
+
+    /**
+     * 查询任务状态，任务不存在或已过保留期时返回 null
+     */
+    public BatchJobStatus getStatus(String id) {
+        Job job = jobs.get(id);
+        return job == null ? null : job.snapshot();
+    }
+
+    private void run(Job job) {
+        job.start();
+        try {
+            logService.processBatchFile(archivePath(job.id), job.status.getContentType(), job).get();
+            job.finish(null);
+        } catch (ExecutionException e) {
+            if (!running) {
+                // 服务关闭导致的失败，保留为未结束状态，重启后继续
+                return;
+            }
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Batch job " + job.id + " failed: " + cause.getMessage());
+            job.finish(cause.getMessage() != null ? cause.getMessage() : cause.toString());
+        } catch (InterruptedException e) {
+            // 服务关闭，任务保留为未结束状态
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            job.finish(e.toString());
+        }
+        deleteQuietly(archivePath(job.id));
+        purgeExpired();
+    }
+
+    /**
+     * 启动时加载暂存目录中的任务：未结束的重新排队，结束的保留供查询，删除没有状态文件的压缩包
+     */
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir, "*" + STATUS_SUFFIX)) {
+            for (Path file : files) {
+                BatchJobStatus status;
+                try {
+                    status = objectMapper.readValue(file.toFile(), BatchJobStatus.class);
+                } catch (IOException e) {
+                    System.err.println("Skipping unreadable batch job status " + file + ": " + e.getMessage());
+                    continue;
+                }
+                Job job = new Job(status);
+                jobs.put(status.getId(), job);
+                if (status.getState() == State.QUEUED || status.getState() == State.RUNNING) {
+                    if (Files.exists(archivePath(status.getId()))) {
+                        job.requeue();
+                        jobExecutor.execute(() -> run(job));
+                    } else {
+                        job.finish("Spooled archive is missing");
+                    }
+                }
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir, "*" + ARCHIVE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!jobs.containsKey(name.substring(0, name.length() - ARCHIVE_SUFFIX.length()))) {
+                    deleteQuietly(file);
+                }
+            }
+        }
+        purgeExpired();
+    }
+
+    /**
+     * 删除超过保留期的已结束任务，除启动和任务结束时外还定时执行，空闲节点上的过期文件同样会被清理
+     */
+    @Scheduled(fixedDelayString = "${log-collector.batch.jobs.purge-interval-ms:600000}")
+    void purgeExpired() {
+        LocalDateTime expiry = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> {
+            if (!job.isExpired(expiry)) {
+                return false;
+            }
+            deleteQuietly(statusPath(job.id));
+            deleteQuietly(archivePath(job.id));
+            return true;
+        });
+    }
+
+    private Path archivePath(String id) {
+        return spoolDir.resolve(id + ARCHIVE_SUFFIX);
+    }
+
+    private Path statusPath(String id) {
+        return spoolDir.resolve(id + STATUS_SUFFIX);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 单个任务，同时作为 LogService 的进度回调
+     * 计数由批量解析线程并发累加，其余状态的修改和持久化在 synchronized 中进行
+     */
+    private final class Job implements BatchProgress {
+        private final String id;
+        private final BatchJobStatus status;
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private long startLines;                                  // 本次开始处理时已计入的行数
+        private long startNanos;
+        private long persistedNanos;                              // 最近一次写入状态文件的时间
+
+        private Job(BatchJobStatus status) {
+            this.id = status.getId();
+            this.status = status;
+            accepted.set(status.getAccepted());
+            rejected.set(status.getRejected());
+        }
+
+        /**
+         * 重启恢复时计数回到已完成条目和各条目检查点处的结果，检查点之后的部分会重新处理
+         */
+        private synchronized void requeue() {
+            long completedAccepted = 0;
+            long completedRejected = 0;
+            for (long[] counts : status.getCompletedEntries().values()) {
+                completedAccepted += counts[0];
+                completedRejected += counts[1];
+            }
+            for (long[] checkpoint : status.getEntryCheckpoints().values()) {
+                completedAccepted += checkpoint[3];
+                completedRejected += checkpoint[4];
+            }
+            accepted.set(completedAccepted);
+            rejected.set(completedRejected);
+            status.setState(State.QUEUED);
+            status.setEntriesCompleted(status.getCompletedEntries().size());
+            persistQuietly();
+        }
+
+        private synchronized void start() {
+            status.setState(State.RUNNING);
+            status.setStartedAt(LocalDateTime.now());
+            startLines = accepted.get() + rejected.get();
+            startNanos = System.nanoTime();
+            persistQuietly();
+        }
+
+        private synchronized void finish(String error) {
+            status.setState(error == null ? State.SUCCEEDED : State.FAILED);
+            status.setError(error);
+            status.setFinishedAt(LocalDateTime.now());
+            if (error == null) {
+                // tar 的条目数在处理完后才确定
+                status.setEntriesTotal(status.getEntriesCompleted());
+            }
+            status.setLinesPerSecond(linesPerSecond());
+            persistQuietly();
+        }
+
+        private synchronized boolean isExpired(LocalDateTime expiry) {
+            return status.getFinishedAt() != null && status.getFinishedAt().isBefore(expiry);
+        }
+
+        @Override
+        public synchronized boolean isEntryCompleted(String key) {
+            return status.getCompletedEntries().containsKey(key);
+        }
+
+        @Override
+        public synchronized long[] entryCheckpoint(String key) {
+            return status.getEntryCheckpoints().get(key);
+        }
+
+        @Override
+        public synchronized void onStarted(int entries) {
+            status.setEntriesTotal(entries < 0 ? -1 : status.getCompletedEntries().size() + entries);
+            persistQuietly();
+        }
+
+        @Override
+        public void onPublished(long accepted, long rejected) {
+            this.accepted.addAndGet(accepted);
+            this.rejected.addAndGet(rejected);
+        }
+
+        @Override
+        public synchronized void onCheckpoint(String key, long[] checkpoint) {
+            status.getEntryCheckpoints().put(key, checkpoint);
+            if (System.nanoTime() - persistedNanos >= TimeUnit.MILLISECONDS.toNanos(CHECKPOINT_PERSIST_INTERVAL_MS)) {
+                persistQuietly();
+            }
+        }
+
+        @Override
+        public synchronized void onEntryCompleted(String key, long accepted, long rejected) {
+            status.getEntryCheckpoints().remove(key);
+            status.getCompletedEntries().put(key, new long[] {accepted, rejected});
+            status.setEntriesCompleted(status.getCompletedEntries().size());
+            persistQuietly();
+        }
+
+        private double linesPerSecond() {
+            if (startNanos == 0) {
+                return 0;
+            }
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            long lines = accepted.get() + rejected.get() - startLines;
+            return seconds > 0 ? lines / seconds : 0;
+        }
+
+        private synchronized BatchJobStatus snapshot() {
+            BatchJobStatus copy = objectMapper.convertValue(status, BatchJobStatus.class);
+            copy.setAccepted(accepted.get());
+            copy.setRejected(rejected.get());
+            if (status.getState() == State.RUNNING) {
+                copy.setLinesPerSecond(linesPerSecond());
+            }
+            return copy;
+        }
+
+        /**
+         * 写入临时文件后原子替换，崩溃时不会留下不完整的状态文件
+         */
+        private synchronized void persist() throws IOException {
+            status.setAccepted(accepted.get());
+            status.setRejected(rejected.get());
+            Path target = statusPath(id);
+            Path temp = target.resolveSibling(id + STATUS_SUFFIX + ".tmp");
+            objectMapper.writeValue(temp.toFile(), status);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            persistedNanos = System.nanoTime();
+        }
+
+        private void persistQuietly() {
+            try {
+                persist();
+            } catch (IOException e) {
+                System.err.println("Failed to persist batch job " + id + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        jobExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.logcollector.service;
+
+/**
+ * 批量上报的处理进度回调，由批量解析线程并发调用，实现需线程安全
+ * 计数按发布的组汇报，条目完成时汇报该条目的累计结果；重试从检查点继续，已汇报的行不会重复汇报
+ *
+ * 条目以 key 标识：ZIP 条目的序号或 tar 条目头的位置，后接条目名（见 LogService.entryKey），
+ * 归档中有同名条目（如 tar -r 追加的同名文件）时各自独立记录进度
+ */
+public interface BatchProgress {
+    /**
+     * 不关心进度时使用
+     */
+    BatchProgress NONE = new BatchProgress() {
+    };
+
+    /**
+     * 是否跳过该条目，用于恢复处理时跳过已完成的条目
+     */
+    default boolean isEntryCompleted(String key) {
+        return false;
+    }
+
+    /**
+     * 条目上次保存的检查点，恢复处理时从这里继续
+     * @return onCheckpoint 收到的最后一个检查点，没有时为 null
+     */
+    default long[] entryCheckpoint(String key) {
+        return null;
+    }
+
+    /**
+     * 文件打开后调用一次
+     * @param entries 需要处理的条目数，不含已跳过的条目；tar 格式边读边发现条目，为 -1
+     */
+    default void onStarted(int entries) {
+    }
+
+    /**
+     * 一组日志发布之后调用
+     * @param accepted 解析成功的行数
+     * @param rejected 无法解析或超长而丢弃的行数
+     */
+    default void onPublished(long accepted, long rejected) {
+    }
+
+    /**
+     * 条目的检查点推进后调用，同一条目的调用来自同一时刻的单个线程
+     * @param checkpoint [检查点位置, 检查点之前的行数, 是否位于被丢弃的超长行中（1 或 0）, 成功数, 拒绝数]，
+     *                   计数是该条目在检查点之前的累计结果，调用后不再修改
+     */
+    default void onCheckpoint(String key, long[] checkpoint) {
+    }
+
+    /**
+     * 条目处理完成后调用
+     */
+    default void onEntryCompleted(String key, long accepted, long rejected) {
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.logcollector.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.example.logcollector.codec.RejectReason;
+
+/**
+ * 批量日志中无法解析的行的死信文件
+ * 解析线程只把行内容复制进有界队列，由单独的线程追加写入 dead-letter.log，不在解析线程上做任何 I/O；
+ * 队列已满时丢弃记录并计数，拒绝计数不受影响
+ *
+ * 每条记录一行，制表符分隔：记录时间、来源、压缩包条目名、行号、原因、原始行内容（超长时截断，制表符和回车替换为空格）
+ * 文件超过 max-file-bytes 时依次重命名为 dead-letter.log.1 ... .N，最多保留 max-files 个历史文件
+ */
+@Component
+public class DeadLetterSink {
+    private static final String FILE_NAME = "dead-letter.log";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final DeadLetter STOP = new DeadLetter(null, null, 0, null, new byte[0]);
+
+    private final boolean enabled;
+    private final Path file;
+    private final long maxFileBytes;                              // 单个文件大小上限
+    private final int maxFiles;                                   // 保留的历史文件数
+    private final int maxLineBytes;                               // 记录中原始行内容的长度上限
+    private final BlockingQueue<DeadLetter> queue;
+    private final Map<RejectReason, Counter> rejected = new EnumMap<>(RejectReason.class);  // 按原因的拒绝行数
+    private final Counter dropped;                                // 队列已满而未写入死信文件的记录数
+    private final Counter written;                                // 已写入死信文件的记录数
+    private final Thread writer;
+
+    public DeadLetterSink(MeterRegistry meterRegistry,
+                          @Value("${log-collector.dead-letter.enabled:true}") boolean enabled,
+                          @Value("${log-collector.dead-letter.dir:logs}") String dir,
+                          @Value("${log-collector.dead-letter.max-file-bytes:67108864}") long maxFileBytes,
+                          @Value("${log-collector.dead-letter.max-files:5}") int maxFiles,
+                          @Value("${log-collector.dead-letter.max-line-bytes:4096}") int maxLineBytes,
+                          @Value("${log-collector.dead-letter.queue-capacity:65536}") int queueCapacity) {
+        this.enabled = enabled;
+        this.file = Paths.get(dir, FILE_NAME);
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.maxLineBytes = maxLineBytes;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        for (RejectReason reason : RejectReason.values()) {
+            rejected.put(reason, meterRegistry.counter("logcollector.batch.rejected", "reason", reason.tag()));
+        }
+        this.dropped = meterRegistry.counter("logcollector.deadletter.dropped");
+        this.written = meterRegistry.counter("logcollector.deadletter.written");
+        Gauge.builder("logcollector.deadletter.queued", queue, BlockingQueue::size)
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::writeLoop, "LogDeadLetterWriter");
+        writer.setDaemon(true);
+        if (enabled) {
+            writer.start();
+        }
+    }
+
+    /**
+     * 记录一行被拒绝的日志，只复制行内容并入队，不阻塞
+     *
+     * @param source 来源，如 batch、zip-stream
+     * @param entry 压缩包条目名
+     * @param lineNumber 行号，从 1 开始
+     * @param buffer 行所在的缓冲区，不修改其 position 和 limit
+     * @param start 行起始位置
+     * @param end 行结束位置（不含换行符）
+     */
+    public void reject(String source, String entry, long lineNumber, RejectReason reason,
+                       ByteBuffer buffer, int start, int end) {
+        rejected.get(reason).increment();
+        if (!enabled) {
+            return;
+        }
+        int length = Math.min(end - start, maxLineBytes);
+        byte[] line = new byte[length];
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get(start + i);
+            line[i] = b == '\t' || b == '\r' ? (byte) ' ' : b;
+        }
+        if (!queue.offer(new DeadLetter(source, entry, lineNumber, reason, line))) {
+            dropped.increment();
+        }
+    }
+
+    private void writeLoop() {
+        FileChannel channel = null;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        List<DeadLetter> batch = new ArrayList<>();
+        try {
+            while (true) {
+                DeadLetter first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+                boolean stop = false;
+                for (DeadLetter letter : batch) {
+                    if (letter == STOP) {
+                        stop = true;
+                        continue;
+                    }
+                    try {
+                        if (channel == null) {
+                            Files.createDirectories(file.getParent());
+                            channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                        }
+                        byte[] record = letter.encode();
+                        if (channel.size() + buffer.position() + record.length > maxFileBytes
+                                && channel.size() + buffer.position() > 0) {
+                            flush(channel, buffer);
+                            channel.close();
+                            channel = null;
+                            rotate();
+                            channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                        }
+                        if (record.length > buffer.remaining()) {
+                            flush(channel, buffer);
+                        }
+                        if (record.length > buffer.capacity()) {
+                            channel.write(ByteBuffer.wrap(record));
+                        } else {
+                            buffer.put(record);
+                        }
+                        written.increment();
+                    } catch (IOException e) {
+                        System.err.println("Failed to write dead letter: " + e.getMessage());
+                        dropped.increment();
+                    }
+                }
+                batch.clear();
+                if (channel != null) {
+                    flush(channel, buffer);
+                }
+                if (stop) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Failed to write dead letter: " + e.getMessage());
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * dead-letter.log.N-1 -> .N ... dead-letter.log -> .1，超出保留数的最旧文件被覆盖
+     */
+    private void rotate() throws IOException {
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path older = file.resolveSibling(FILE_NAME + "." + i);
+            if (Files.exists(older)) {
+                Files.move(older, file.resolveSibling(FILE_NAME + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(file, file.resolveSibling(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * 队列中的一条死信记录
+     */
+    private static final class DeadLetter {
+        private final String source;
+        private final String entry;
+        private final long lineNumber;
+        private final RejectReason reason;
+        private final byte[] line;
+        private final LocalDateTime time = LocalDateTime.now();
+
+        private DeadLetter(String source, String entry, long lineNumber, RejectReason reason, byte[] line) {
+            this.source = source;
+            this.entry = entry;
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+            this.line = line;
+        }
+
+        private byte[] encode() {
+            byte[] prefix = (time + "\t" + source + "\t" + entry + "\t" + lineNumber + "\t" + reason.tag() + "\t")
+                    .getBytes(StandardCharsets.UTF_8);
+            byte[] record = new byte[prefix.length + line.length + 1];
+            System.arraycopy(prefix, 0, record, 0, prefix.length);
+            System.arraycopy(line, 0, record, prefix.length, line.length);
+            record[record.length - 1] = '\n';
+            return record;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        // 写完已入队的记录再退出
+        try {
+            queue.put(STOP);
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
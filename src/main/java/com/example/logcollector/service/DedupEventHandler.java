@@ -0,0 +1,78 @@
+package com.example.logcollector.service;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.example.logcollector.model.LogEvent;
+import com.lmax.disruptor.BatchStartAware;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.TimeoutHandler;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * 写入前的去重阶段，单个消费线程按 RingBuffer 顺序检查所有事件的 ID，位于各分片的 LogEventHandler 之前
+ * 只查询不记录：各分片分组提交成功（ACK_AFTER_FSYNC 模式下已落盘）后才通过 committed 交回本组的 ID，
+ * 由本线程在下一批次开始或等待超时时写入过滤器，过滤器始终只由本线程访问；
+ * 写入失败的日志不会被记录，客户端重试时照常写入
+ *
+ * 窗口内重复的事件标记为无效，由写线程跳过；原日志已经写入，其写入确认在这里直接完成
+ * 原日志尚未提交时到达的重复不会被识别，两条都会写入（至少一次）
+ * 不区分分片路由方式，按生产者线程路由时同一 ID 的重复同样能识别
+ */
+public class DedupEventHandler implements EventHandler<LogEvent>, BatchStartAware, TimeoutHandler {
+    private final DuplicateFilter filter;
+    private final Counter duplicates;             // 被丢弃的重复日志数
+    private final Queue<List<String>> committed = new ConcurrentLinkedQueue<>();  // 各分片已提交、等待记录的 ID
+
+    public DedupEventHandler(DuplicateFilter filter, Counter duplicates) {
+        this.filter = filter;
+        this.duplicates = duplicates;
+    }
+
+    /**
+     * 由分片写线程在分组提交成功后调用，调用后不得再修改 ids
+     */
+    public void committed(List<String> ids) {
+        committed.add(ids);
+    }
+
+    @Override
+    public void onBatchStart(long batchSize) {
+        recordCommitted();
+    }
+
+    @Override
+    public void onEvent(LogEvent event, long sequence, boolean endOfBatch) {
+        if (!event.isValid()) {
+            return;
+        }
+        String id = event.getEntry().getId();
+        if (id != null && filter.contains(id)) {
+            event.setValid(false);
+            duplicates.increment();
+            CompletableFuture<Void> ack = event.getAck();
+            if (ack != null) {
+                event.setAck(null);
+                ack.complete(null);
+            }
+        }
+    }
+
+    @Override
+    public void onTimeout(long sequence) {
+        recordCommitted();
+        filter.maybeRotate();
+    }
+
+    private void recordCommitted() {
+        List<String> ids;
+        while ((ids = committed.poll()) != null) {
+            for (String id : ids) {
+                filter.add(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.logcollector.service;
+
+import java.util.Arrays;
+
+/**
+ * 按时间窗口识别重复 ID 的分代分块布隆过滤器，内存在创建时一次分配，之后不再增长
+ * 共 generations 代，每代覆盖 window / (generations - 1)：查询检查所有代，插入只写当前代；
+ * 当前代到期或插入数达到容量时，清空最老的一代作为新的当前代，因此 window 内的重复一定能识别
+ * 插入速度超过预期时提前轮转，误判率不变，可识别的时间窗口随之缩短
+ *
+ * 每个 ID 在每代中只落在一个 512 位（8 个 long，一条缓存行）的块内，各代的同号块相邻存放，
+ * 一次查询只访问连续的 generations 条缓存行，硬件预取可以覆盖；轮转时按步长清空一代的所有块
+ * UUID 格式的 ID 按 16 进制直接解析为两个 long 作为键，其余 ID 按字符计算两个 64 位哈希
+ *
+ * 查询与记录分开：调用方在日志写入成功后才记录 ID，写入失败的日志重试时不会被当作重复
+ * 存在误判：未记录过的 ID 以约 falsePositiveRate 的概率被判为重复；不会漏判窗口内记录过的 ID
+ * 实例不是线程安全的，由单个线程使用
+ */
+public class DuplicateFilter {
+    private static final int BLOCK_LONGS = 8;                   // 每块 512 位
+    private static final int BLOCK_BITS_SHIFT = 9;
+    private static final int MAX_HASHES = 16;
+    private static final int CLOCK_CHECK_INTERVAL = 1024;       // 每插入这么多个 ID 检查一次是否到期
+    private static final long INVALID_HALF = 0x8000000000000001L;  // 不是 UUID 格式
+    private static final byte[] HEX_DIGITS = new byte[128];     // 字符对应的 16 进制数字，非 16 进制字符为 -1
+
+    static {
+        Arrays.fill(HEX_DIGITS, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX_DIGITS['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_DIGITS['a' + i] = (byte) (10 + i);
+            HEX_DIGITS['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private final long[] bits;                                  // 按 [块][代][8 个 long] 排列的位数组
+    private final int generationCount;                          // 代数
+    private final int blocks;                                   // 每代的块数
+    private final int hashes;                                   // 每个 ID 在块内设置的位数
+    private final long capacity;                                // 每代的插入数上限
+    private final long generationNanos;                         // 每代的时长
+    private int current;                                        // 当前代的下标
+    private long currentCount;                                  // 当前代已插入的 ID 数
+    private long currentStart;                                  // 当前代开始的时间
+    private int sinceClockCheck;
+    private long rotations;
+    private int hashGroup;                                      // 最近一次计算的块组起始下标
+    private long hashBits;                                      // 最近一次计算的块内位置哈希
+
+    /**
+     * @param windowNanos 一定能识别重复的时间窗口
+     * @param generationCount 代数，不少于 2；越多窗口越精确，查询越慢
+     * @param expectedIds 预期每个窗口内的 ID 数
+     * @param falsePositiveRate 整体误判率
+     */
+    public DuplicateFilter(long windowNanos, int generationCount, long expectedIds, double falsePositiveRate) {
+        if (generationCount < 2) {
+            throw new IllegalArgumentException("generations must be at least 2");
+        }
+        if (expectedIds <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expected ids and false positive rate must be positive");
+        }
+        // 查询要经过所有代，每代分摊整体误判率；分块使误判率略高于标准布隆过滤器，位数多留 20%
+        double rate = falsePositiveRate / generationCount;
+        double bitsPerId = -Math.log(rate) / (Math.log(2) * Math.log(2)) * 1.2;
+        this.hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(bitsPerId / 1.2 * Math.log(2))));
+        this.capacity = (expectedIds + generationCount - 2) / (generationCount - 1);
+        long blockCount = ((long) Math.ceil(capacity * bitsPerId) + (1 << BLOCK_BITS_SHIFT) - 1) >>> BLOCK_BITS_SHIFT;
+        if (blockCount * generationCount * BLOCK_LONGS > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Duplicate filter too large: "
+                    + blockCount * generationCount * BLOCK_LONGS * Long.BYTES + " bytes");
+        }
+        this.blocks = (int) blockCount;
+        this.generationCount = generationCount;
+        this.generationNanos = windowNanos / (generationCount - 1);
+        this.bits = new long[blocks * generationCount * BLOCK_LONGS];
+        this.currentStart = System.nanoTime();
+    }
+
+    /**
+     * 判断 ID 是否在窗口内记录过
+     */
+    public boolean contains(String id) {
+        int group = hash(id);
+        for (int generation = 0; generation < generationCount; generation++) {
+            if (contains(group + generation * BLOCK_LONGS, hashBits)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 记录 ID；窗口内已记录过的 ID 不再写入，同一 ID 多次记录不会占用当前代的容量
+     */
+    public void add(String id) {
+        if (contains(id)) {
+            return;
+        }
+        if (++sinceClockCheck >= CLOCK_CHECK_INTERVAL || currentCount >= capacity) {
+            sinceClockCheck = 0;
+            maybeRotate();
+        }
+        int block = hashGroup + current * BLOCK_LONGS;
+        long g = hashBits;
+        for (int i = 0; i < hashes; i++) {
+            int bit = bitIndex(g, i);
+            bits[block + (bit >>> 6)] |= 1L << bit;
+            if (i % 7 == 6) {
+                g = mix(g);
+            }
+        }
+        currentCount++;
+    }
+
+    /**
+     * 计算 ID 所在块组的起始下标，块内位置的哈希存入 hashBits
+     */
+    private int hash(String id) {
+        long h1;
+        long h2;
+        long msb = uuidHalf(id, 0, 19);
+        long lsb = msb == INVALID_HALF ? INVALID_HALF : uuidHalf(id, 19, 36);
+        if (lsb != INVALID_HALF) {
+            h1 = mix(msb ^ mix(lsb));
+            h2 = mix(lsb + 0x9E3779B97F4A7C15L);
+        } else {
+            long a = 0xCBF29CE484222325L;
+            long b = 0x84222325CBF29CE4L;
+            for (int i = 0; i < id.length(); i++) {
+                char c = id.charAt(i);
+                a = (a ^ c) * 0x100000001B3L;
+                b = Long.rotateLeft(b + c, 31) * 0x9E3779B97F4A7C15L;
+            }
+            h1 = mix(a ^ id.length());
+            h2 = mix(b);
+        }
+        hashBits = h2;
+        hashGroup = (int) (((h1 >>> 32) * blocks) >>> 32) * generationCount * BLOCK_LONGS;
+        return hashGroup;
+    }
+
+    /**
+     * 按时间检查是否需要轮转，用于长时间没有新 ID 时及时淘汰过期的代
+     */
+    public void maybeRotate() {
+        long now = System.nanoTime();
+        if (currentCount >= capacity || now - currentStart >= generationNanos) {
+            current = (current + 1) % generationCount;
+            for (int block = current * BLOCK_LONGS; block < bits.length; block += generationCount * BLOCK_LONGS) {
+                Arrays.fill(bits, block, block + BLOCK_LONGS, 0L);
+            }
+            currentCount = 0;
+            currentStart = now;
+            rotations++;
+        }
+    }
+
+    public long getRotations() {
+        return rotations;
+    }
+
+    public long memoryBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    private boolean contains(int block, long h2) {
+        long g = h2;
+        for (int i = 0; i < hashes; i++) {
+            int bit = bitIndex(g, i);
+            if ((bits[block + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+            if (i % 7 == 6) {
+                g = mix(g);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 一个 64 位哈希提供 7 个 9 位的块内位置，用完后重新混合
+     */
+    private static int bitIndex(long g, int i) {
+        return (int) (g >>> ((i % 7) * BLOCK_BITS_SHIFT)) & ((1 << BLOCK_BITS_SHIFT) - 1);
+    }
+
+    /**
+     * 解析 UUID 字符串 xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx 的前半 [0, 19) 或后半 [19, 36)
+     * 不是 UUID 格式时返回 INVALID_HALF；恰好解析出 INVALID_HALF 的 UUID 按普通字符串哈希，结果同样一致
+     */
+    private static long uuidHalf(String id, int start, int end) {
+        if (id.length() != 36) {
+            return INVALID_HALF;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return INVALID_HALF;
+                }
+                continue;
+            }
+            int digit = hexDigit(c);
+            if (digit < 0) {
+                return INVALID_HALF;
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    /**
+     * 查表得到 16 进制数字的值，随机的 UUID 中数字和字母交替出现，按范围判断会频繁分支预测失败
+     */
+    private static int hexDigit(char c) {
+        return c < HEX_DIGITS.length ? HEX_DIGITS[c] : -1;
+    }
+
+    /**
+     * SplitMix64 的混合函数
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
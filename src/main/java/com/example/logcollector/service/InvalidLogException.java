@@ -0,0 +1,10 @@
+package com.example.logcollector.service;
+
+/**
+ * 日志内容无法解析或字段类型不合法
+ */
+public class InvalidLogException extends RuntimeException {
+    public InvalidLogException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.logcollector.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 已关闭小时日志文件的后台压缩器
+ * 将 client_YYYYMMDD_HH.log 压缩为可随机访问的分块 gzip 文件 .log.gz：
+ * 每个块按行边界切分、独立压缩为一个 gzip member，整个文件仍可直接用 gzip/zcat 解压；
+ * 同时生成 .log.gz.idx 索引，每个块记录一对 long（原始偏移，压缩偏移），便于按偏移定位
+ *
+ * 压缩任务运行在低优先级、有界队列的线程池中，队列满时放弃压缩并保留原始文件，绝不阻塞写入线程；
+ * 放弃或中断的文件由 LogWriter 的定期扫描重新提交，同一文件在完成前重复提交时忽略
+ */
+@Component
+public class LogCompactor {
+    private static final String COMPRESSED_SUFFIX = ".gz";        // 压缩文件后缀
+    private static final String INDEX_SUFFIX = ".gz.idx";         // 索引文件后缀
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final boolean enabled;                                // 是否开启压缩
+    private final int compressionLevel;                           // 压缩级别 1-9
+    private final int blockSize;                                  // 每个压缩块的原始大小上限
+    private final ThreadPoolExecutor compactExecutor;             // 低优先级压缩线程池
+    private final Set<Path> pending = ConcurrentHashMap.newKeySet();  // 已提交、尚未完成的文件
+
+    // 监控指标
+    private final Counter filesCompacted;                         // 已压缩文件数
+    private final Counter filesSkipped;                           // 队列已满或失败而未压缩的文件数
+    private final Counter bytesIn;                                // 压缩前字节数
+    private final Counter bytesOut;                               // 压缩后字节数
+    private final Counter bytesSaved;                             // 节省的字节数
+    private final DistributionSummary throughput;                 // 单个文件的压缩吞吐（字节/秒）
+
+    public LogCompactor(MeterRegistry meterRegistry,
+                        @Value("${log-collector.compaction.enabled:true}") boolean enabled,
+                        @Value("${log-collector.compaction.level:6}") int compressionLevel,
+                        @Value("${log-collector.compaction.block-size:1048576}") int blockSize,
+                        @Value("${log-collector.compaction.concurrency:1}") int concurrency,
+                        @Value("${log-collector.compaction.queue-capacity:64}") int queueCapacity) {
+        this.enabled = enabled;
+        this.compressionLevel = compressionLevel;
+        this.blockSize = blockSize;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.compactExecutor = new ThreadPoolExecutor(concurrency, concurrency,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r);
+                    thread.setName("LogCompactor-" + threadIndex.getAndIncrement());
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.filesCompacted = meterRegistry.counter("logcollector.compaction.files");
+        this.filesSkipped = meterRegistry.counter("logcollector.compaction.files.skipped");
+        this.bytesIn = meterRegistry.counter("logcollector.compaction.bytes.in");
+        this.bytesOut = meterRegistry.counter("logcollector.compaction.bytes.out");
+        this.bytesSaved = meterRegistry.counter("logcollector.compaction.bytes.saved");
+        this.throughput = DistributionSummary.builder("logcollector.compaction.throughput")
+                .baseUnit("bytes/s")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 提交一个已关闭的日志文件进行压缩
+     * 队列已满时直接放弃，原始文件保持不变；该文件已在队列中或正在压缩时忽略
+     */
+    public void submit(Path logFile) {
+        if (!enabled || !pending.add(logFile)) {
+            return;
+        }
+        try {
+            compactExecutor.execute(() -> {
+                try {
+                    compact(logFile);
+                } finally {
+                    pending.remove(logFile);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(logFile);
+            filesSkipped.increment();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void compact(Path logFile) {
+        if (!Files.exists(logFile)) {
+            // 扫描与关闭回调先后提交了同一文件，先完成的一次已压缩并删除
+            return;
+        }
+        Path compressed = logFile.resolveSibling(logFile.getFileName() + COMPRESSED_SUFFIX);
+        Path index = logFile.resolveSibling(logFile.getFileName() + INDEX_SUFFIX);
+        long start = System.nanoTime();
+        try {
+            long originalSize = Files.size(logFile);
+            long compressedSize = writeBlocks(logFile, compressed, index);
+            // 压缩文件和索引都落盘后才删除原始文件
+            Files.delete(logFile);
+
+            long elapsed = Math.max(1, System.nanoTime() - start);
+            filesCompacted.increment();
+            bytesIn.increment(originalSize);
+            bytesOut.increment(compressedSize);
+            bytesSaved.increment(originalSize - compressedSize);
+            throughput.record(originalSize * 1_000_000_000.0 / elapsed);
+        } catch (IOException e) {
+            filesSkipped.increment();
+            e.printStackTrace();
+            try {
+                Files.deleteIfExists(compressed);
+                Files.deleteIfExists(index);
+            } catch (IOException ignored) {
+                // 保留原始文件即可，残留的半成品在下次压缩时会被覆盖
+            }
+        }
+    }
+
+    /**
+     * 按行边界切分并逐块压缩
+     * @return 压缩文件的总字节数
+     */
+    private long writeBlocks(Path logFile, Path compressed, Path index) throws IOException {
+        byte[] block = new byte[blockSize];
+        byte[] deflated = new byte[64 * 1024];
+        Deflater deflater = new Deflater(compressionLevel, true);
+        CRC32 crc = new CRC32();
+        long uncompressedOffset = 0;
+        long compressedOffset = 0;
+
+        try (InputStream in = Files.newInputStream(logFile);
+             FileOutputStream file = new FileOutputStream(compressed.toFile());
+             OutputStream out = new BufferedOutputStream(file, 64 * 1024);
+             FileOutputStream indexFile = new FileOutputStream(index.toFile());
+             DataOutputStream indexOut = new DataOutputStream(new BufferedOutputStream(indexFile))) {
+            int filled = 0;
+            boolean eof = false;
+            while (true) {
+                while (!eof && filled < block.length) {
+                    int read = in.read(block, filled, block.length - filled);
+                    if (read == -1) {
+                        eof = true;
+                    } else {
+                        filled += read;
+                    }
+                }
+                if (filled == 0 && compressedOffset > 0) {
+                    // 空文件也写出一个空 member，保证结果是合法的 gzip 文件
+                    break;
+                }
+
+                // 块内最后一个换行符之后的半行留到下一块，文件结束或单行超过块大小时整块压缩
+                int length = filled;
+                if (!eof) {
+                    int lastNewline = lastIndexOf(block, filled, (byte) '\n');
+                    if (lastNewline >= 0) {
+                        length = lastNewline + 1;
+                    }
+                }
+
+                indexOut.writeLong(uncompressedOffset);
+                indexOut.writeLong(compressedOffset);
+                compressedOffset += writeMember(out, block, length, deflater, crc, deflated);
+                uncompressedOffset += length;
+
+                System.arraycopy(block, length, block, 0, filled - length);
+                filled -= length;
+            }
+            out.flush();
+            file.getFD().sync();
+            indexOut.flush();
+            indexFile.getFD().sync();
+        } finally {
+            deflater.end();
+        }
+        return compressedOffset;
+    }
+
+    /**
+     * 写出一个独立的 gzip member
+     * @return 写出的字节数
+     */
+    private static long writeMember(OutputStream out, byte[] data, int length,
+                                    Deflater deflater, CRC32 crc, byte[] deflated) throws IOException {
+        out.write(GZIP_HEADER);
+        long written = GZIP_HEADER.length;
+
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        while (!deflater.finished()) {
+            int n = deflater.deflate(deflated);
+            out.write(deflated, 0, n);
+            written += n;
+        }
+
+        crc.reset();
+        crc.update(data, 0, length);
+        writeIntLE(out, (int) crc.getValue());
+        writeIntLE(out, length);
+        return written + 8;
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private static int lastIndexOf(byte[] data, int length, byte value) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactExecutor.shutdown();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.logcollector.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.example.logcollector.model.LogEvent;
+import com.example.logcollector.writer.DurabilityMode;
+import com.example.logcollector.writer.ShardWriter;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.LifecycleAware;
+import com.lmax.disruptor.TimeoutHandler;
+
+/**
+ * 分组提交的日志事件处理器，每个写入分片对应一个处理器和一个消费线程，只处理路由到本分片的事件
+ * 同一 Disruptor 批次内的事件先追加到写缓冲区，在批次结束时统一写入一次；
+ * 批次过大时按字节数或条数上限提前提交，避免单次写入过大；
+ * 等待超时（即一段时间没有新事件）时也会刷盘，保证空闲期的数据及时落盘
+ *
+ * 分组提交完成后统一回调组内事件的写入确认，ACK_AFTER_FSYNC 模式下先 force 再确认；
+ * 写入失败时组内所有确认以异常结束
+ * 开启去重时，分组提交成功后才把组内日志的 ID 交给去重阶段记录，写入失败的日志重试时不会被当作重复丢弃
+ */
+public class LogEventHandler implements EventHandler<LogEvent>, TimeoutHandler, LifecycleAware {
+    private final ShardWriter shardWriter;        // 本分片的写入器
+    private final int shard;                      // 本分片序号
+    private final DurabilityMode durabilityMode;  // 写入确认方式
+    private final int maxBatchBytes;              // 单次提交的最大字节数
+    private final int maxBatchEntries;            // 单次提交的最大条数
+    private final DedupEventHandler dedup;        // 去重阶段，未开启去重时为 null
+
+    private final List<CompletableFuture<Void>> pendingAcks = new ArrayList<>();  // 当前分组等待确认的请求
+    private List<String> pendingIds = new ArrayList<>();  // 当前分组待提交日志的 ID，提交成功后交给去重阶段
+    private IOException pendingFailure;           // 当前分组内发生的写入失败
+    private int pendingBytes;                     // 当前批次已追加的字节数
+    private int pendingEntries;                   // 当前批次已追加的条数
+
+    public LogEventHandler(ShardWriter shardWriter, int shard, DurabilityMode durabilityMode,
+                           int maxBatchBytes, int maxBatchEntries, DedupEventHandler dedup) {
+        this.shardWriter = shardWriter;
+        this.shard = shard;
+        this.durabilityMode = durabilityMode;
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBatchEntries = maxBatchEntries;
+        this.dedup = dedup;
+    }
+
+    @Override
+    public void onEvent(LogEvent event, long sequence, boolean endOfBatch) {
+        if (!event.isValid() || event.getShard() != shard) {
+            // 解析失败、被去重丢弃或不属于本分片的事件直接跳过，但批次结束时仍需提交已追加的内容；
+            // 其他分片持续有流量时等待不会超时，整点轮转也要在这里完成
+            if (endOfBatch && (pendingEntries > 0 || shardWriter.isRotationPending())) {
+                commit();
+            }
+            return;
+        }
+
+        CompletableFuture<Void> ack = event.getAck();
+        if (ack != null) {
+            pendingAcks.add(ack);
+            event.setAck(null);
+        }
+        try {
+            pendingBytes += shardWriter.writeLog(event.getEntry());
+        } catch (IOException e) {
+            if (pendingFailure == null) {
+                pendingFailure = e;
+            }
+        }
+        pendingEntries++;
+        if (dedup != null && event.getEntry().getId() != null) {
+            pendingIds.add(event.getEntry().getId());
+        }
+
+        if (endOfBatch || pendingBytes >= maxBatchBytes || pendingEntries >= maxBatchEntries) {
+            commit();
+        }
+    }
+
+    @Override
+    public void onTimeout(long sequence) {
+        commit();
+    }
+
+    @Override
+    public void onStart() {
+    }
+
+    @Override
+    public void onShutdown() {
+        commit();
+    }
+
+    /**
+     * 提交当前分组，空闲超时时分组可能为空，此时只用于及时处理整点轮转
+     */
+    private void commit() {
+        IOException failure = pendingFailure;
+        if (failure == null) {
+            try {
+                shardWriter.flush();
+                if (durabilityMode == DurabilityMode.ACK_AFTER_FSYNC && pendingEntries > 0) {
+                    shardWriter.force();
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        if (failure != null) {
+            failure.printStackTrace();
+            pendingIds.clear();
+        } else if (!pendingIds.isEmpty()) {
+            dedup.committed(pendingIds);
+            pendingIds = new ArrayList<>();
+        }
+        for (CompletableFuture<Void> ack : pendingAcks) {
+            if (failure == null) {
+                ack.complete(null);
+            } else {
+                ack.completeExceptionally(failure);
+            }
+        }
+        pendingAcks.clear();
+        pendingFailure = null;
+        pendingBytes = 0;
+        pendingEntries = 0;
+    }
+}
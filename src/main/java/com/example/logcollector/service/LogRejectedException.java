@@ -0,0 +1,10 @@
+package com.example.logcollector.service;
+
+/**
+ * 暂时无法接收更多日志时抛出：RingBuffer 已满且溢出策略为 REJECT，或异步批量任务的等待队列已满
+ */
+public class LogRejectedException extends RuntimeException {
+    public LogRejectedException(String message) {
+        super(message);
+    }
+}
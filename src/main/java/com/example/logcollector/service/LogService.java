@@ -1,28 +1,66 @@
 package com.example.logcollector.service;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import javax.annotation.PreDestroy;
 
-import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.example.logcollector.codec.ArchiveFormat;
+import com.example.logcollector.codec.BatchLineParser;
+import com.example.logcollector.codec.LineParser;
+import com.example.logcollector.codec.LogEntryJsonReader;
+import com.example.logcollector.codec.RejectReason;
+import com.example.logcollector.codec.TarEntryReader;
 import com.example.logcollector.model.LogEntry;
-import com.lmax.disruptor.BlockingWaitStrategy;
+import com.example.logcollector.model.LogEvent;
+import com.example.logcollector.writer.DurabilityMode;
+import com.example.logcollector.writer.OverflowPolicy;
+import com.example.logcollector.writer.ShardRouting;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lmax.disruptor.InsufficientCapacityException;
 import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.TimeoutBlockingWaitStrategy;
+import com.lmax.disruptor.TimeoutException;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 
@@ -34,69 +72,440 @@ import com.lmax.disruptor.dsl.ProducerType;
 public class LogService {
     // 核心组件
     private final LogWriter logWriter;                    // 日志写入器
-    private final RingBuffer<LogEntry> ringBuffer;        // Disruptor环形缓冲区
-    private final ScheduledExecutorService scheduler;     // 定时任务执行器
-    private final List<LogEntry> batchBuffer;            // 批量处理缓冲区
-    private final Object batchLock = new Object();       // 批处理同步锁
+    private final DeadLetterSink deadLetters;             // 批量日志中被拒绝的行的死信文件
+    private final Disruptor<LogEvent> disruptor;          // Disruptor实例
+    private final RingBuffer<LogEvent> ringBuffer;        // Disruptor环形缓冲区
+    private final DurabilityMode durabilityMode;          // 实时日志的写入确认方式
+    private final ShardRouting shardRouting;              // 写入分片的路由方式
+    private final JsonFactory jsonFactory;                // 实时日志请求体的 JSON 解析器工厂
+    private final LogEntryJsonReader jsonReader = new LogEntryJsonReader();  // 直接解析到槽位的读取器
+    private final OverflowPolicy overflowPolicy;          // RingBuffer 已满时实时日志的处理方式
+    private final Counter rejectedEvents;                 // 因 RingBuffer 已满被拒绝的日志数
+    private final Counter spilledEvents;                  // 因 RingBuffer 已满写入溢出文件的日志数
+    private final BlockingQueue<PendingLog> pendingLogs;  // block 策略下等待 RingBuffer 空位的实时日志
+    private final Thread ringWaiter;                      // 为等待中的实时日志占用空位并发布的线程
+    private volatile boolean running = true;              // 服务是否仍在接收日志
+    private final int shardCount;                         // 写入分片数
+    private final ScheduledExecutorService scheduler;     // 批量上报重试的定时执行器
+    private final ThreadPoolExecutor batchExecutor;       // 批量上报压缩包条目的并行解析线程池
     
     // 常量配置
     private static final int RING_BUFFER_SIZE = 1024 * 64;  // 环形缓冲区大小，必须是2的幂
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = 
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");  // 日期格式化器
+    private static final CompletableFuture<Void> ACCEPTED =
+            CompletableFuture.completedFuture(null);             // 无需确认时共享的已完成结果
+    private static final int MAX_BATCH_ATTEMPTS = 3;         // 批量上报落盘和每个条目的最大尝试次数
+    private static final int BATCH_CLAIM_SIZE = 256;         // 批量上报每次占用的连续空位数
+    private static final long BATCH_QUEUE_WAIT_MS = 100;     // 解析线程池队列已满时等待或重新提交的间隔
+    private static final int BATCH_LINE_BUFFER_SIZE = 64 * 1024;  // 批量上报每个条目的行缓冲区大小，也是单行长度上限
+    private static final int BATCH_STREAM_BUFFER_SIZE = 64 * 1024;  // gzip、tar 批量文件的读取缓冲区大小
+    static final String GZIP_ENTRY = "gzip";                 // 单个 gzip 文本作为一个条目时的条目名
+    static final String PLAIN_ENTRY = "plain";               // 未压缩文本作为一个条目时的条目名
 
-    public LogService(LogWriter logWriter) {
+    public LogService(LogWriter logWriter,
+                      DeadLetterSink deadLetters,
+                      MeterRegistry meterRegistry,
+                      ObjectMapper objectMapper,
+                      @Value("${log-collector.writer.max-batch-bytes:1048576}") int maxBatchBytes,
+                      @Value("${log-collector.writer.max-batch-entries:8192}") int maxBatchEntries,
+                      @Value("${log-collector.writer.flush-interval-ms:1000}") long flushIntervalMs,
+                      @Value("${log-collector.writer.durability:fire-and-forget}") DurabilityMode durabilityMode,
+                      @Value("${log-collector.writer.shard-routing:id}") ShardRouting shardRouting,
+                      @Value("${log-collector.writer.overflow-policy:block}") OverflowPolicy overflowPolicy,
+                      @Value("${log-collector.writer.pending-capacity:16384}") int pendingCapacity,
+                      @Value("${log-collector.batch.parallelism:0}") int batchParallelism,
+                      @Value("${log-collector.batch.queue-capacity:256}") int batchQueueCapacity,
+                      @Value("${log-collector.dedup.enabled:false}") boolean dedupEnabled,
+                      @Value("${log-collector.dedup.window-seconds:600}") long dedupWindowSeconds,
+                      @Value("${log-collector.dedup.generations:4}") int dedupGenerations,
+                      @Value("${log-collector.dedup.expected-ids:10000000}") long dedupExpectedIds,
+                      @Value("${log-collector.dedup.false-positive-rate:0.0001}") double dedupFalsePositiveRate) {
         this.logWriter = logWriter;
-        this.batchBuffer = new ArrayList<>();
+        this.deadLetters = deadLetters;
+        this.durabilityMode = durabilityMode;
+        this.shardRouting = shardRouting;
+        this.jsonFactory = objectMapper.getFactory();
+        this.overflowPolicy = overflowPolicy;
+        this.shardCount = logWriter.getShardCount();
         this.scheduler = Executors.newScheduledThreadPool(1);
-        this.ringBuffer = createRingBuffer();
+        this.batchExecutor = createBatchExecutor(batchParallelism, batchQueueCapacity);
+        DedupEventHandler dedup = null;
+        if (dedupEnabled) {
+            DuplicateFilter filter = new DuplicateFilter(TimeUnit.SECONDS.toNanos(dedupWindowSeconds),
+                    dedupGenerations, dedupExpectedIds, dedupFalsePositiveRate);
+            dedup = new DedupEventHandler(filter, meterRegistry.counter("logcollector.dedup.duplicates"));
+            Gauge.builder("logcollector.dedup.memory.bytes", filter, DuplicateFilter::memoryBytes)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            FunctionCounter.builder("logcollector.dedup.rotations", filter, DuplicateFilter::getRotations)
+                    .register(meterRegistry);
+        }
+        this.disruptor = createDisruptor(maxBatchBytes, maxBatchEntries, flushIntervalMs, dedup);
+        this.ringBuffer = disruptor.getRingBuffer();
+
+        // 写入路径监控：RingBuffer 中待写入的事件数、分片写缓冲区中尚未写出的字节数
+        Gauge.builder("logcollector.ring.backlog", ringBuffer,
+                        rb -> rb.getBufferSize() - rb.remainingCapacity())
+                .register(meterRegistry);
+        Gauge.builder("logcollector.write.inflight.bytes", logWriter, LogWriter::bufferedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.rejectedEvents = meterRegistry.counter("logcollector.ring.rejected");
+        this.spilledEvents = meterRegistry.counter("logcollector.ring.spilled");
 
-        scheduler.scheduleAtFixedRate(this::processBatchBuffer,
-                10, 10, TimeUnit.SECONDS);
+        // RingBuffer 已满时，实时日志在等待队列中排队，由单独的线程阻塞等待空位，请求线程立即返回
+        this.pendingLogs = new ArrayBlockingQueue<>(pendingCapacity);
+        Gauge.builder("logcollector.ring.waiting", pendingLogs, BlockingQueue::size)
+                .register(meterRegistry);
+        this.ringWaiter = new Thread(this::publishPendingLogs, "LogRingWaiter");
+        ringWaiter.setDaemon(true);
+        ringWaiter.start();
     }
 
     /**
-     * 创建并配置用于日志处理的环形缓冲区
-     * @return 配置好的RingBuffer实例
+     * 创建批量上报的条目解析线程池，并行度为 0 时与 CPU 核心数一致
+     * 队列已满或关闭后拒绝新任务，由 submitBatchAttempt 决定等待、重新提交还是让对应的处理失败；
+     * 线程预先启动，第一次尝试可以直接放入队列等待空位
      */
-    private RingBuffer<LogEntry> createRingBuffer() {
-        // 创建自定义线程工厂，为日志处理线程指定名称
+    private static ThreadPoolExecutor createBatchExecutor(int parallelism, int queueCapacity) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "LogBatchWorker-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+        executor.prestartAllCoreThreads();
+        return executor;
+    }
+
+    /**
+     * 创建并启动用于日志处理的 Disruptor
+     * @param maxBatchBytes 单次提交的最大字节数
+     * @param maxBatchEntries 单次提交的最大条数
+     * @param flushIntervalMs 空闲时的刷盘间隔，通过等待超时触发
+     * @param dedup 去重阶段，未开启去重时为 null
+     * @return 已启动的Disruptor实例
+     */
+    private Disruptor<LogEvent> createDisruptor(int maxBatchBytes, int maxBatchEntries, long flushIntervalMs,
+                                                DedupEventHandler dedup) {
+        // 创建自定义线程工厂，为每个分片的日志处理线程指定名称
+        AtomicInteger threadIndex = new AtomicInteger();
         ThreadFactory threadFactory = r -> {
             Thread thread = new Thread(r);
-            thread.setName("LogProcessor");
+            thread.setName("LogProcessor-" + threadIndex.getAndIncrement());
             return thread;
         };
 
         // 初始化Disruptor，配置环形缓冲区
-        Disruptor<LogEntry> disruptor = new Disruptor<>(
-                LogEntry::new,                // 事件工厂，用于创建LogEntry实例
+        Disruptor<LogEvent> disruptor = new Disruptor<>(
+                LogEvent::new,                // 事件工厂，用于预分配事件槽位
                 RING_BUFFER_SIZE,            // 环形缓冲区大小
                 threadFactory,               // 自定义线程工厂
                 ProducerType.MULTI,          // 多生产者模式
-                new BlockingWaitStrategy()   // 使用阻塞等待策略
+                new TimeoutBlockingWaitStrategy(flushIntervalMs, TimeUnit.MILLISECONDS)  // 阻塞等待，超时触发刷盘
         );
 
-        // 配置事件处理器，定义如何处理日志条目
-        disruptor.handleEventsWith((event, sequence, endOfBatch) ->
-                logWriter.writeLog(event));
+        // 每个写入分片配置一个分组提交的事件处理器，同一批次的日志合并为一次写入
+        LogEventHandler[] handlers = new LogEventHandler[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            handlers[i] = new LogEventHandler(logWriter.getShard(i), i,
+                    durabilityMode, maxBatchBytes, maxBatchEntries, dedup);
+        }
+        if (dedup != null) {
+            // 开启去重时所有事件先经过去重阶段，再交给各分片写入
+            disruptor.handleEventsWith(dedup).then(handlers);
+        } else {
+            disruptor.handleEventsWith(handlers);
+        }
 
         // 启动Disruptor
         disruptor.start();
-        // 返回配置好的环形缓冲区
-        return disruptor.getRingBuffer();
+        return disruptor;
     }
 
     /**
      * 处理实时日志条目
-     * 计算处理时间和延迟时间，并将日志放入 RingBuffer
+     * 将日志放入 RingBuffer，按写入确认方式返回结果：
+     * FIRE_AND_FORGET 立即完成，其余模式在所属分组写入（及落盘）后完成，不占用等待线程
+     * RingBuffer 已满时按溢出策略排队等待、拒绝或写入溢出文件；排队时 logEntry 会被保留，调用方不得再修改
+     */
+    public CompletableFuture<Void> processRealtimeLog(LogEntry logEntry) {
+        CompletableFuture<Void> ack = newAck();
+        long sequence = tryClaim();
+        if (sequence < 0) {
+            return overflow(logEntry, ack, false);
+        }
+        publish(sequence, logEntry, ack);
+        return ack == null ? ACCEPTED : ack;
+    }
+
+    /**
+     * 处理 JSON 格式的实时日志请求体
+     * 请求体已完整读入内存，占用槽位后直接解析到槽位中预分配的 LogEntry，
+     * 不创建中间对象，也不在占用槽位期间等待网络读取；写入确认与溢出策略同 processRealtimeLog
+     *
+     * @param body 请求体缓冲区
+     * @param length 请求体长度
+     * @throws InvalidLogException 请求体不是合法的日志 JSON
+     */
+    public CompletableFuture<Void> processRealtimeJson(byte[] body, int length) {
+        return processRealtimeJson(body, length, false);
+    }
+
+    /**
+     * 同 processRealtimeJson(byte[], int)，供不允许阻塞的调用方（如事件循环线程）使用
+     *
+     * @param nonBlocking 为 true 时，BLOCK 策略下等待队列也已满则抛出 LogRejectedException，而不是阻塞等待空位
+     */
+    public CompletableFuture<Void> processRealtimeJson(byte[] body, int length, boolean nonBlocking) {
+        CompletableFuture<Void> ack = newAck();
+        long sequence = tryClaim();
+        if (sequence < 0) {
+            // 慢路径：请求体缓冲区随后会被复用，先解析到独立的对象再排队、拒绝或写入溢出文件
+            LogEntry logEntry = new LogEntry();
+            readJson(body, length, logEntry);
+            return overflow(logEntry, ack, nonBlocking);
+        }
+
+        try {
+            LogEvent event = ringBuffer.get(sequence);
+            // 先标记为无效，解析失败时槽位照常发布，由写线程跳过
+            event.setValid(false);
+            event.setAck(null);
+            readJson(body, length, event.getEntry());
+            event.setAck(ack);
+            event.setShard(routeShard(event.getEntry()));
+            event.setValid(true);
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+        return ack == null ? ACCEPTED : ack;
+    }
+
+    /**
+     * 尝试占用一个空位，RingBuffer 已满或已有日志在排队时返回 -1，
+     * 后者保证排队中的日志不会被新请求插队而长时间等待
+     */
+    private long tryClaim() {
+        if (!pendingLogs.isEmpty()) {
+            return -1;
+        }
+        try {
+            return ringBuffer.tryNext();
+        } catch (InsufficientCapacityException e) {
+            return -1;
+        }
+    }
+
+    private CompletableFuture<Void> newAck() {
+        return durabilityMode == DurabilityMode.FIRE_AND_FORGET ? null : new CompletableFuture<>();
+    }
+
+    private void readJson(byte[] body, int length, LogEntry target) {
+        try (JsonParser parser = jsonFactory.createParser(body, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT || !jsonReader.read(parser, target)) {
+                throw new InvalidLogException("expected a JSON object with valid field values");
+            }
+            if (parser.nextToken() != null) {
+                throw new InvalidLogException("unexpected content after the JSON object");
+            }
+        } catch (JsonProcessingException e) {
+            throw new InvalidLogException(e.getOriginalMessage());
+        } catch (IOException e) {
+            // 从内存缓冲区解析不会发生读取失败
+            throw new InvalidLogException(e.getMessage());
+        }
+    }
+
+    /**
+     * RingBuffer 已满时的处理
+     * BLOCK：放入等待队列，返回的结果在发布后（或按写入确认方式在写入后）完成，等待期间不占用请求线程；
+     * 等待队列也满时才阻塞当前线程，保证不丢日志；nonBlocking 为 true 时改为抛出 LogRejectedException
+     * REJECT：抛出 LogRejectedException
+     * SPILL：由生产者线程同步写入溢出文件，写入完成即视为已确认
+     */
+    private CompletableFuture<Void> overflow(LogEntry logEntry, CompletableFuture<Void> ack, boolean nonBlocking) {
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            PendingLog pending = new PendingLog(logEntry, ack);
+            if (!running || !pendingLogs.offer(pending)) {
+                if (nonBlocking) {
+                    rejectedEvents.increment();
+                    throw new LogRejectedException("Log ring buffer and pending queue are full");
+                }
+                publish(ringBuffer.next(), logEntry, ack);
+                return ack == null ? ACCEPTED : ack;
+            }
+            return pending.result;
+        }
+        if (overflowPolicy == OverflowPolicy.REJECT) {
+            rejectedEvents.increment();
+            throw new LogRejectedException("Log ring buffer is full");
+        }
+        try {
+            logWriter.spill(logEntry);
+            spilledEvents.increment();
+            return ACCEPTED;
+        } catch (IOException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * 等待队列的消费循环，运行在 LogRingWaiter 线程
+     * 按入队顺序阻塞等待空位并发布；停止接收后仍会把队列中剩余的日志发布完再退出
+     */
+    private void publishPendingLogs() {
+        while (running || !pendingLogs.isEmpty()) {
+            PendingLog pending;
+            try {
+                pending = pendingLogs.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (pending == null) {
+                continue;
+            }
+            publish(ringBuffer.next(), pending.logEntry, pending.ack);
+            if (pending.ack == null) {
+                pending.result.complete(null);
+            }
+        }
+    }
+
+    /**
+     * 等待 RingBuffer 空位的实时日志
+     */
+    private static final class PendingLog {
+        private final LogEntry logEntry;
+        private final CompletableFuture<Void> ack;      // 写入确认，FIRE_AND_FORGET 时为 null
+        private final CompletableFuture<Void> result;   // 返回给请求方的结果
+
+        private PendingLog(LogEntry logEntry, CompletableFuture<Void> ack) {
+            this.logEntry = logEntry;
+            this.ack = ack;
+            this.result = ack != null ? ack : new CompletableFuture<>();
+        }
+    }
+
+    /**
+     * 发布批量日志，批量路径始终阻塞等待空位，
+     * 既避免整个压缩包中途失败后重放，也让写入变慢时上游连接随之减速
      */
-    public void processRealtimeLog(LogEntry logEntry) {
-        // 获取 RingBuffer 中的下一个可用序号
+    public void processBulkLog(LogEntry logEntry) {
+        publish(ringBuffer.next(), logEntry, null);
+    }
+
+    /**
+     * 发布一行批量日志，阻塞等待空位后直接解析到槽位
+     * 解析失败的槽位标记为无效后照常发布，由写线程跳过
+     *
+     * @param parser 调用方线程独占的解析器
+     * @param buffer 行所在的缓冲区
+     * @param start 行起始位置
+     * @param end 行结束位置（不含换行符）
+     * @return 是否解析成功
+     */
+    public boolean processBulkLine(LineParser parser, ByteBuffer buffer, int start, int end) {
         long sequence = ringBuffer.next();
+        LogEvent event = ringBuffer.get(sequence);
+        boolean valid = false;
+        try {
+            event.setAck(null);
+            valid = parser.parse(buffer, start, end, event.getEntry());
+            if (valid) {
+                event.setShard(routeShard(event.getEntry()));
+            }
+        } finally {
+            event.setValid(valid);
+            ringBuffer.publish(sequence);
+        }
+        return valid;
+    }
+
+    /**
+     * 一次占用 count 个连续空位并逐个填充后整体发布，用于一次到达多条日志的无确认来源
+     * 空位不足时不等待，整组放弃并返回 -1，由调用方计为丢弃；填充失败的槽位标记为无效后照常发布
+     *
+     * @param count 日志条数，不超过 RingBuffer 大小
+     * @param filler 调用方线程独占的填充器，按 0..count-1 的顺序被调用
+     * @return 填充成功的条数，空位不足时返回 -1
+     */
+    public int tryProcessBulkBatch(int count, EntryFiller filler) {
+        long hi;
+        try {
+            hi = ringBuffer.tryNext(count);
+        } catch (InsufficientCapacityException e) {
+            return -1;
+        }
+        return fillAndPublish(hi, count, filler);
+    }
+
+    /**
+     * 阻塞等待 count 个连续空位后逐个填充并整体发布，用于批量上报；填充失败的槽位标记为无效后照常发布
+     *
+     * @param count 日志条数，不超过 RingBuffer 大小
+     * @param filler 调用方线程独占的填充器，按 0..count-1 的顺序被调用
+     * @return 填充成功的条数
+     */
+    public int processBulkBatch(int count, EntryFiller filler) {
+        return fillAndPublish(ringBuffer.next(count), count, filler);
+    }
+
+    private int fillAndPublish(long hi, int count, EntryFiller filler) {
+        long lo = hi - count + 1;
+        // 先把整组槽位标记为无效，填充中途抛出异常时剩余槽位同样被写线程跳过
+        for (long sequence = lo; sequence <= hi; sequence++) {
+            LogEvent event = ringBuffer.get(sequence);
+            event.setAck(null);
+            event.setValid(false);
+        }
+        int accepted = 0;
+        try {
+            for (long sequence = lo; sequence <= hi; sequence++) {
+                LogEvent event = ringBuffer.get(sequence);
+                if (filler.fill((int) (sequence - lo), event.getEntry())) {
+                    event.setShard(routeShard(event.getEntry()));
+                    event.setValid(true);
+                    accepted++;
+                }
+            }
+        } finally {
+            ringBuffer.publish(lo, hi);
+        }
+        return accepted;
+    }
+
+    /**
+     * 把第 index 条日志直接写入槽位中预分配的 LogEntry
+     */
+    public interface EntryFiller {
+        /**
+         * @return 日志是否合法，不合法的槽位由写线程跳过
+         */
+        boolean fill(int index, LogEntry target);
+    }
+
+    /**
+     * RingBuffer 当前的剩余空位数，供接入层做流量控制
+     */
+    public long remainingCapacity() {
+        return ringBuffer.remainingCapacity();
+    }
+
+    private void publish(long sequence, LogEntry logEntry, CompletableFuture<Void> ack) {
         try {
             // 获取该序号对应的事件对象（在 RingBuffer 中的槽位）
-            LogEntry event = ringBuffer.get(sequence);
-            // 使用 Spring 的 BeanUtils 工具类，将输入的 logEntry 的所有属性复制到事件对象中
-            BeanUtils.copyProperties(logEntry, event);
+            LogEvent event = ringBuffer.get(sequence);
+            // 逐字段复制到预分配的槽位，不经过反射
+            event.getEntry().copyFrom(logEntry);
+            event.setAck(ack);
+            event.setShard(routeShard(logEntry));
+            event.setValid(true);
         } finally {
             // 发布事件，通知消费者可以消费这个序号的事件了
             // 放在 finally 块中确保即使发生异常也能正确发布，避免 RingBuffer 死锁
@@ -105,89 +514,587 @@ public class LogService {
     }
 
     /**
-     * 处理批量日志文件（ZIP格式）
-     * 包含重试机制，最多重试3次
+     * 计算日志应写入的分片
      */
-    public void processBatchLogs(MultipartFile zipFile) {
-        int retryCount = 0;
-        while (retryCount < 3) {
-            try {
-                try (ZipInputStream zis = new ZipInputStream(zipFile.getInputStream())) {
-                    ZipEntry entry;
-                    while ((entry = zis.getNextEntry()) != null) {
-                        processZipEntry(zis);
-                    }
-                }
-                return; // Success, exit the retry loop
-            } catch (IOException e) {
-                retryCount++;
-                if (retryCount >= 3) {
-                    System.err.println("Failed to process batch logs after 3 attempts: " + e.getMessage());
-                    throw new RuntimeException("Failed to process batch logs", e);
-                }
-                try {
-                    Thread.sleep(1000 * retryCount);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Interrupted during retry wait", ie);
+    private int routeShard(LogEntry logEntry) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        if (shardRouting == ShardRouting.THREAD) {
+            return (int) (Thread.currentThread().getId() % shardCount);
+        }
+        String id = logEntry.getId();
+        return id == null ? 0 : (id.hashCode() & Integer.MAX_VALUE) % shardCount;
+    }
+
+    /**
+     * 处理批量日志文件，格式为 ZIP、gzip、tar、tar.gz 或未压缩的文本，按魔数和 Content-Type 识别（见 ArchiveFormat）
+     * 文件先落盘为临时文件（已是本地文件时直接使用）；ZIP 以随机访问方式打开后，
+     * 各条目在批量解析线程池中并行解压和解析；其余格式只能顺序解压，整个文件作为一个任务处理
+     * 每个条目的日志按组一次占用连续空位发布，每行可以是竖线格式或 JSON 对象
+     *
+     * 落盘和每个条目的处理各自最多尝试3次，重试间隔由 scheduler 定时触发，不占用等待线程；
+     * 条目在每次发布后记录检查点，重试时从检查点继续，已发布的日志不会重复发布
+     * @param zipFile 上传的文件，Servlet 下为 MultipartFile，WebFlux 下为落盘后的临时文件
+     * @param contentType 上传文件的 Content-Type，未知时为 null
+     * @return 所有条目处理完成后完成；任一条目重试耗尽时以该异常失败，其余条目照常处理完
+     */
+    public CompletableFuture<Void> processBatchLogs(InputStreamSource zipFile, String contentType) {
+        Path spooled = null;
+        try {
+            if (zipFile instanceof Resource && ((Resource) zipFile).isFile()) {
+                return processBatchFile(((Resource) zipFile).getFile().toPath(), contentType, BatchProgress.NONE);
+            }
+            spooled = Files.createTempFile("log-batch-", ".tmp");
+        } catch (IOException e) {
+            return failedBatch(e);
+        }
+        Path target = spooled;
+        return retrying(() -> spool(zipFile, target))
+                .thenCompose(path -> processBatchFile(path, contentType, BatchProgress.NONE))
+                .whenComplete((ignored, e) -> deleteQuietly(target));
+    }
+
+    /**
+     * 处理上传的批量日志文件，Content-Type 取自 MultipartFile
+     */
+    public CompletableFuture<Void> processBatchLogs(InputStreamSource zipFile) {
+        return processBatchLogs(zipFile, contentType(zipFile));
+    }
+
+    /**
+     * 上传文件的 Content-Type，只有 MultipartFile 带有该信息
+     */
+    static String contentType(InputStreamSource file) {
+        return file instanceof MultipartFile ? ((MultipartFile) file).getContentType() : null;
+    }
+
+    /**
+     * 将上传内容写入指定文件，异步批量任务暂存压缩包时同样使用
+     */
+    static Path spool(InputStreamSource zipFile, Path target) throws IOException {
+        if (zipFile instanceof MultipartFile) {
+            // 已落盘的上传文件直接移动，不再复制
+            Files.deleteIfExists(target);
+            ((MultipartFile) zipFile).transferTo(target.toFile());
+        } else {
+            try (InputStream in = zipFile.getInputStream()) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * 处理本地的批量日志文件，文件由调用方负责删除
+     * ZIP 的各个条目并行处理，全部完成后关闭压缩包；线程池队列已满时提交线程等待空位，
+     * 多个压缩包同时上传时不会无限堆积任务
+     * gzip 和未压缩的文本作为一个条目（条目名为 gzip、plain）处理；tar 的条目按顺序处理，
+     * 条目数事先未知，onStarted 收到 -1
+     *
+     * @param contentType 文件的 Content-Type，魔数无法识别格式时参考，未知时为 null
+     * @param progress 进度回调，已完成的条目会被跳过
+     * @return 所有条目处理完成后完成；任一条目重试耗尽时以该异常失败，其余条目照常处理完
+     */
+    public CompletableFuture<Void> processBatchFile(Path path, String contentType, BatchProgress progress) {
+        ArchiveFormat format;
+        try {
+            format = detectFormat(path, contentType);
+        } catch (IOException e) {
+            return failedBatch(e);
+        }
+        if (format == ArchiveFormat.ZIP) {
+            return processZipFile(path, progress);
+        }
+        boolean gzip = format == ArchiveFormat.GZIP || format == ArchiveFormat.TAR_GZIP;
+        EntryOpener opener = () -> openBatchStream(path, gzip);
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        if (format == ArchiveFormat.TAR || format == ArchiveFormat.TAR_GZIP) {
+            progress.onStarted(-1);
+            CompletableFuture<Long> result = new CompletableFuture<>();
+            submitBatchAttempt(new TarPublisher(opener, progress), 0, result, 0);
+            results.add(result);
+        } else {
+            String name = gzip ? GZIP_ENTRY : PLAIN_ENTRY;
+            String key = entryKey(0, name);
+            boolean completed = progress.isEntryCompleted(key);
+            progress.onStarted(completed ? 0 : 1);
+            if (!completed) {
+                results.add(processEntry(key, name, opener, progress));
+            }
+        }
+        return awaitEntries(results, null);
+    }
+
+    /**
+     * 按文件开头的魔数识别格式，gzip 需要再解压开头才能区分 tar.gz
+     */
+    private static ArchiveFormat detectFormat(Path path, String contentType) throws IOException {
+        byte[] head = new byte[ArchiveFormat.HEAD_BYTES];
+        ArchiveFormat format;
+        try (InputStream in = Files.newInputStream(path)) {
+            format = ArchiveFormat.detect(head, ArchiveFormat.readHead(in, head), contentType);
+        }
+        if (format != ArchiveFormat.GZIP) {
+            return format;
+        }
+        try (InputStream in = openBatchStream(path, true)) {
+            return ArchiveFormat.detectGzipContent(head, ArchiveFormat.readHead(in, head), contentType);
+        }
+    }
+
+    private static InputStream openBatchStream(Path path, boolean gzip) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        try {
+            return gzip
+                    ? new GZIPInputStream(in, BATCH_STREAM_BUFFER_SIZE)
+                    : new BufferedInputStream(in, BATCH_STREAM_BUFFER_SIZE);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Void> processZipFile(Path path, BatchProgress progress) {
+        ZipFile zip;
+        try {
+            zip = new ZipFile(path.toFile());
+        } catch (IOException e) {
+            return failedBatch(e);
+        }
+        List<? extends ZipEntry> entries = Collections.list(zip.entries());
+        Map<String, Integer> nameCounts = new HashMap<>();
+        int[] occurrences = new int[entries.size()];              // 每个条目是第几个同名条目
+        List<Integer> pending = new ArrayList<>();
+        for (int ordinal = 0; ordinal < entries.size(); ordinal++) {
+            ZipEntry entry = entries.get(ordinal);
+            occurrences[ordinal] = nameCounts.merge(entry.getName(), 1, Integer::sum) - 1;
+            if (!entry.isDirectory() && !progress.isEntryCompleted(entryKey(ordinal, entry.getName()))) {
+                pending.add(ordinal);
+            }
+        }
+        progress.onStarted(pending.size());
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        for (int ordinal : pending) {
+            ZipEntry entry = entries.get(ordinal);
+            String name = entry.getName();
+            int occurrence = occurrences[ordinal];
+            EntryOpener opener = nameCounts.get(name) == 1
+                    ? () -> zip.getInputStream(entry)
+                    : () -> openZipOccurrence(path, name, occurrence);
+            results.add(processEntry(entryKey(ordinal, name), name, opener, progress));
+        }
+        return awaitEntries(results, zip);
+    }
+
+    /**
+     * ZipFile 按名称查找条目内容，同名条目只能读到其中一个；
+     * 同名条目改为从头顺序读取本地条目头，取第 occurrence 个（从 0 开始）同名条目
+     */
+    private static InputStream openZipOccurrence(Path path, String name, int occurrence) throws IOException {
+        ZipInputStream in = new ZipInputStream(
+                new BufferedInputStream(Files.newInputStream(path), BATCH_STREAM_BUFFER_SIZE));
+        try {
+            int seen = 0;
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                if (entry.getName().equals(name) && seen++ == occurrence) {
+                    return in;
                 }
             }
+            throw new EOFException("Zip entry " + name + " #" + occurrence + " not found");
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 条目在归档中的标识：ZIP 条目在中央目录中的序号或 tar 条目头的位置，后接条目名；
+     * 归档中可能有同名条目，只用条目名会把后一个当作已完成
+     */
+    static String entryKey(long id, String name) {
+        return id + ":" + name;
+    }
+
+    /**
+     * 提交单个条目，从 progress 中保存的检查点开始，失败后按检查点重试，完成后汇报该条目的结果
+     * @param opener 每次调用都返回从条目开头读取的新流
+     * @return 条目中被丢弃的行数
+     */
+    CompletableFuture<Long> processEntry(String key, String name, EntryOpener opener, BatchProgress progress) {
+        EntryPublisher publisher = new EntryPublisher(key, name, opener, progress);
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        submitBatchAttempt(publisher, 0, result, 0);
+        return result.thenApply(rejected -> {
+            progress.onEntryCompleted(key, publisher.accepted, rejected);
+            return rejected;
+        });
+    }
+
+    /**
+     * 所有条目完成后关闭压缩包（可以为 null）；丢弃的行数已计入 logcollector.batch.rejected 和处理进度
+     */
+    private static CompletableFuture<Void> awaitEntries(List<CompletableFuture<Long>> results, ZipFile zip) {
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, e) -> {
+                    if (zip != null) {
+                        try {
+                            zip.close();
+                        } catch (IOException closeFailure) {
+                            closeFailure.printStackTrace();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * 可重试的批量处理步骤，重试时再次调用同一个对象，由实现自行从上次的进度继续
+     */
+    private interface BatchStep<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * 打开条目内容，每次调用返回从条目开头读取的新流，用于重试时重新读取
+     */
+    interface EntryOpener {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * 在当前线程执行第一次尝试，失败后按重试次数递增的间隔重新提交到批量解析线程池
+     */
+    private <T> CompletableFuture<T> retrying(BatchStep<T> step) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attemptBatchStep(step, 0, result);
+        return result;
+    }
+
+    private <T> void attemptBatchStep(BatchStep<T> step, int retryCount, CompletableFuture<T> result) {
+        try {
+            result.complete(step.run());
+        } catch (IOException e) {
+            if (retryCount + 1 >= MAX_BATCH_ATTEMPTS) {
+                System.err.println("Failed to process batch logs after " + MAX_BATCH_ATTEMPTS + " attempts: " + e.getMessage());
+                result.completeExceptionally(e);
+                return;
+            }
+            submitBatchAttempt(step, retryCount + 1, result, 1000L * (retryCount + 1));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 提交一次尝试，条目始终在批量解析线程中执行
+     * 第一次尝试（delayMs 为 0）由请求线程或任务线程提交，队列已满时在提交线程上等待空位，
+     * 多个压缩包同时上传时解析速度随之受限，不会无限堆积任务；
+     * 重试由 scheduler 在延迟后提交，队列已满时不等待，稍后重新提交，避免阻塞其他重试
+     */
+    private <T> void submitBatchAttempt(BatchStep<T> step, int retryCount, CompletableFuture<T> result,
+                                        long delayMs) {
+        try {
+            if (delayMs == 0) {
+                enqueueBatchAttempt(() -> attemptBatchStep(step, retryCount, result));
+            } else {
+                scheduler.schedule(() -> resubmitBatchAttempt(step, retryCount, result),
+                        delayMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        } catch (RejectedExecutionException e) {
+            // 服务正在关闭
+            result.completeExceptionally(e);
         }
     }
 
-    private void processZipEntry(ZipInputStream zis) throws IOException {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(zis));
-        String line;
-        while ((line = reader.readLine()) != null) {
-            LogEntry logEntry = parseLogEntry(line);
-            if (logEntry != null) {
-                processRealtimeLog(logEntry);
+    /**
+     * 放入解析线程池的队列，队列已满时阻塞等待空位
+     */
+    private void enqueueBatchAttempt(Runnable task) throws InterruptedException {
+        BlockingQueue<Runnable> queue = batchExecutor.getQueue();
+        while (!queue.offer(task, BATCH_QUEUE_WAIT_MS, TimeUnit.MILLISECONDS)) {
+            if (batchExecutor.isShutdown()) {
+                throw new RejectedExecutionException("Batch executor is shut down");
             }
         }
+        if (batchExecutor.isShutdown() && queue.remove(task)) {
+            throw new RejectedExecutionException("Batch executor is shut down");
+        }
     }
 
     /**
-     * 解析单行日志文本
-     * 格式：ID|IP|时间|名称|随机数
+     * 在 scheduler 线程上提交重试，队列已满时延迟后再次提交
      */
-    private LogEntry parseLogEntry(String line) {
+    private <T> void resubmitBatchAttempt(BatchStep<T> step, int retryCount, CompletableFuture<T> result) {
         try {
-            String[] parts = line.split("\\|");
-            if (parts.length >= 5) {
-                LogEntry entry = new LogEntry();
-                entry.setId(parts[0]);
-                entry.setIp(parts[1]);
-                entry.setEventTime(LocalDateTime.parse(parts[2], DATE_TIME_FORMATTER));
-                entry.setName(parts[3]);
-                entry.setRandomNumber(Integer.parseInt(parts[4]));
-                return entry;
+            batchExecutor.execute(() -> attemptBatchStep(step, retryCount, result));
+        } catch (RejectedExecutionException e) {
+            if (batchExecutor.isShutdown()) {
+                result.completeExceptionally(e);
+                return;
             }
-        } catch (Exception e) {
-            System.err.println("Failed to parse log entry: " + line);
+            try {
+                scheduler.schedule(() -> resubmitBatchAttempt(step, retryCount, result),
+                        BATCH_QUEUE_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException shutdown) {
+                result.completeExceptionally(shutdown);
+            }
+        }
+    }
+
+    private static <T> CompletableFuture<T> failedBatch(Throwable e) {
+        CompletableFuture<T> failed = new CompletableFuture<>();
+        failed.completeExceptionally(e);
+        return failed;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
             e.printStackTrace();
         }
-        return null;
     }
 
-    private void addToBatchBuffer(LogEntry logEntry) {
-        synchronized (batchLock) {
-            batchBuffer.add(logEntry);
-            if (batchBuffer.size() >= 5) {
-                processBatchBuffer();
+    /**
+     * 单个条目（ZIP 或 tar 的条目、整个 gzip 或文本文件）的解析与发布，在批量解析线程中运行
+     * 解压输出按换行切分，攒满一组后一次占用连续空位，逐行直接解析到槽位；
+     * 条目末尾没有换行符的最后一行与 readLine 一样按完整的一行处理，超过缓冲区的行被丢弃；
+     * 无法解析和超长的行连同条目名、行号和原因交给死信文件
+     *
+     * 检查点是已发布（或已丢弃）内容在解压输出中的结束位置，每次发布后推进并交给 progress 保存；
+     * 读取失败后重试时重新打开条目，跳过检查点之前的内容继续处理，行号也从检查点处的行数继续；
+     * 重启恢复时从 progress 保存的检查点开始
+     */
+    private final class EntryPublisher implements EntryFiller, BatchStep<Long> {
+        private final String key;
+        private final String name;
+        private final EntryOpener opener;                             // tar 条目由 TarPublisher 直接传入流，为 null
+        private final BatchProgress progress;
+        private final byte[] lineBuffer = new byte[BATCH_LINE_BUFFER_SIZE];
+        private final ByteBuffer line = ByteBuffer.wrap(lineBuffer);
+        private final BatchLineParser parser = new BatchLineParser(jsonFactory);
+        private final int[] bounds = new int[BATCH_CLAIM_SIZE * 2];   // 当前组各行的起止位置
+        private final long[] lineNumbers = new long[BATCH_CLAIM_SIZE];  // 当前组各行的行号
+        private int count;                                            // 当前组的行数
+        private int pendingEnd;                                       // 当前组最后一行换行符之后的位置
+        private long base;                                            // lineBuffer[0] 在解压输出中的位置
+        private long checkpoint;                                      // 已发布内容的结束位置
+        private boolean checkpointDiscarding;                         // 检查点是否位于被丢弃的超长行中
+        private long lineNumber;                                      // 已读完的行数
+        private long checkpointLine;                                  // 检查点之前的行数
+        private long accepted;
+        private long rejected;
+
+        private EntryPublisher(String key, String name, EntryOpener opener, BatchProgress progress) {
+            this.key = key;
+            this.name = name;
+            this.opener = opener;
+            this.progress = progress;
+            long[] saved = progress.entryCheckpoint(key);
+            if (saved != null) {
+                checkpoint = saved[0];
+                checkpointLine = saved[1];
+                checkpointDiscarding = saved[2] != 0;
+                accepted = saved[3];
+                rejected = saved[4];
+            }
+        }
+
+        /**
+         * 重新打开条目，从检查点处理到条目结束
+         * @return 无法解析或超长而丢弃的行数
+         */
+        @Override
+        public Long run() throws IOException {
+            try (InputStream in = opener.open()) {
+                return publish(in);
+            }
+        }
+
+        /**
+         * 从检查点处理到条目结束
+         * @param in 位于条目开头的流，不会被关闭
+         * @return 无法解析或超长而丢弃的行数
+         */
+        private long publish(InputStream in) throws IOException {
+            count = 0;
+            base = checkpoint;
+            lineNumber = checkpointLine;
+            skipFully(in, checkpoint, name);
+            int length = 0;                                       // 缓冲区中未处理的字节数
+            boolean discarding = checkpointDiscarding;            // 是否正在丢弃超长行
+            int read;
+            while ((read = in.read(lineBuffer, length, lineBuffer.length - length)) != -1) {
+                int limit = length + read;
+                int lineStart = 0;
+                for (int i = length; i < limit; i++) {
+                    if (lineBuffer[i] == '\n') {
+                        lineNumber++;
+                        if (discarding) {
+                            discarding = false;
+                        } else {
+                            add(lineStart, i);
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                // 行的位置指向缓冲区，移动剩余内容前先发布
+                pendingEnd = lineStart;
+                flush();
+                length = limit - lineStart;
+                if (lineStart > 0) {
+                    System.arraycopy(lineBuffer, lineStart, lineBuffer, 0, length);
+                    base += lineStart;
+                } else if (length == lineBuffer.length) {
+                    if (!discarding) {
+                        rejected++;
+                        progress.onPublished(0, 1);
+                        deadLetters.reject("batch", name, lineNumber + 1, RejectReason.LINE_TOO_LONG,
+                                line, 0, length);
+                        discarding = true;
+                    }
+                    base += length;
+                    checkpoint = base;
+                    checkpointDiscarding = true;
+                    checkpointLine = lineNumber;
+                    progress.onCheckpoint(key, checkpointState());
+                    length = 0;
+                }
+            }
+            if (length > 0 && !discarding) {
+                lineNumber++;
+                add(0, length);
+                pendingEnd = length;
+                flush();
+            }
+            return rejected;
+        }
+
+        private void add(int start, int end) {
+            int next = end + 1;
+            if (end > start && lineBuffer[end - 1] == '\r') {
+                end--;
+            }
+            if (end > start) {
+                bounds[count * 2] = start;
+                bounds[count * 2 + 1] = end;
+                lineNumbers[count] = lineNumber;
+                count++;
+            }
+            if (count == BATCH_CLAIM_SIZE) {
+                pendingEnd = next;
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (count > 0) {
+                int valid = processBulkBatch(count, this);
+                accepted += valid;
+                rejected += count - valid;
+                progress.onPublished(valid, count - valid);
+                count = 0;
+            }
+            if (base + pendingEnd > checkpoint) {
+                checkpoint = base + pendingEnd;
+                checkpointDiscarding = false;
+                checkpointLine = lineNumber;
+                progress.onCheckpoint(key, checkpointState());
+            }
+        }
+
+        private long[] checkpointState() {
+            return new long[] {checkpoint, checkpointLine, checkpointDiscarding ? 1 : 0, accepted, rejected};
+        }
+
+        @Override
+        public boolean fill(int index, LogEntry target) {
+            int start = bounds[index * 2];
+            int end = bounds[index * 2 + 1];
+            if (parser.parse(line, start, end, target)) {
+                return true;
+            }
+            deadLetters.reject("batch", name, lineNumbers[index], parser.failure(), line, start, end);
+            return false;
+        }
+    }
+
+    /**
+     * tar 或 tar.gz 文件的顺序处理，在批量解析线程中运行
+     * tar 只能顺序读取，各条目依次交给 EntryPublisher 从同一个流中发布；已完成的条目按头的位置识别并跳过
+     * 检查点是下一个未完成条目的头在 tar 流中的位置，处理到一半的条目保留自己的检查点；
+     * 读取失败后重试时重新打开文件，跳到该头重新读取条目信息，再从条目的检查点继续
+     */
+    private final class TarPublisher implements BatchStep<Long> {
+        private final EntryOpener opener;
+        private final BatchProgress progress;
+        private long nextHeader;                                      // 下一个未完成条目的头的位置
+        private EntryPublisher current;                               // 处理到一半的条目
+        private long rejected;
+
+        private TarPublisher(EntryOpener opener, BatchProgress progress) {
+            this.opener = opener;
+            this.progress = progress;
+        }
+
+        /**
+         * @return 所有条目中无法解析或超长而丢弃的行数
+         */
+        @Override
+        public Long run() throws IOException {
+            try (InputStream in = opener.open()) {
+                skipFully(in, nextHeader, "Tar archive");
+                TarEntryReader tar = new TarEntryReader(in, nextHeader);
+                String name;
+                while ((name = tar.getNextEntry()) != null) {
+                    String key = entryKey(tar.getEntryStart(), name);
+                    if (progress.isEntryCompleted(key)) {
+                        nextHeader = tar.getEntryEnd();
+                        continue;
+                    }
+                    if (current == null) {
+                        current = new EntryPublisher(key, name, null, progress);
+                    }
+                    long entryRejected = current.publish(tar);
+                    rejected += entryRejected;
+                    progress.onEntryCompleted(key, current.accepted, entryRejected);
+                    nextHeader = tar.getEntryEnd();
+                    current = null;
+                }
             }
+            return rejected;
         }
     }
 
-    private void processBatchBuffer() {
-        synchronized (batchLock) {
-            if (!batchBuffer.isEmpty()) {
-                logWriter.writeBatch(new ArrayList<>(batchBuffer));
-                batchBuffer.clear();
+    private static void skipFully(InputStream in, long n, String name) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                throw new EOFException(name + " ended before checkpoint");
             }
+            n -= skipped;
         }
     }
+
     @PreDestroy
     public void cleanup() {
+        // 先发布等待队列中的日志，再关闭 Disruptor
+        running = false;
+        try {
+            ringWaiter.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        batchExecutor.shutdown();
+        try {
+            batchExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         scheduler.shutdown();
         try {
             if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
@@ -196,5 +1103,11 @@ public class LogService {
         } catch (InterruptedException e) {
             scheduler.shutdownNow();
         }
+        // 等待 RingBuffer 中的日志处理完毕，消费线程退出前会完成最后一次刷盘
+        try {
+            disruptor.shutdown(10, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            disruptor.halt();
+        }
     }
 }
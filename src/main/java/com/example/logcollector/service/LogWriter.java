@@ -1,26 +1,57 @@
 package com.example.logcollector.service;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.example.logcollector.buffer.DirectBufferPool;
+import com.example.logcollector.codec.LogLineEncoder;
 import com.example.logcollector.model.LogEntry;
+import com.example.logcollector.writer.ChannelLogSegment;
+import com.example.logcollector.writer.LogSegment;
+import com.example.logcollector.writer.MappedLogSegment;
+import com.example.logcollector.writer.ShardWriter;
+import com.example.logcollector.writer.WriterMode;
 
 /**
  * 日志写入器组件
- * 负责将日志条目异步写入文件系统
- * 支持按小时自动分割日志文件
+ * 按分片组织写入：每个分片拥有独立的小时日志文件、写缓冲区和 Disruptor 消费线程，
+ * 单分片时文件名为 client_YYYYMMDD_HH.log，多分片时为 client_YYYYMMDD_HH_sN.log
+ *
+ * 按小时切分由轮转线程负责：整点前预先打开所有分片下一小时的文件，整点时原子替换；
+ * 开启 merge-on-close 时，某小时所有分片文件关闭后在后台合并为规范的单个文件；
+ * 关闭（及合并）后的文件交给 LogCompactor 在后台压缩，没有写入任何日志的空文件直接删除；
+ * 启动时及之后定期扫描日志目录，补交此前各小时因队列已满、进程退出等原因仍未压缩的文件
  */
 @Component
 public class LogWriter {
@@ -28,93 +59,321 @@ public class LogWriter {
     private static final String LOG_DIR = "logs";                 // 日志目录
     private static final String LOG_FILE_PREFIX = "client_";      // 日志文件前缀
     private static final String LOG_FILE_SUFFIX = ".log";         // 日志文件后缀
+    private static final String SHARD_SUFFIX_PATTERN = "_s\\d+(?=\\.log$)";  // 分片文件名后缀
+    private static final Pattern LOG_FILE_PATTERN =
+            Pattern.compile("client_(\\d{8})_(\\d{2})(?:_s\\d+|_spill)?\\.log");  // 日志文件名，捕获日期和小时
 
-    private final ExecutorService writeExecutor;                  // 写入线程池
-    private Path currentLogFile;                                 // 当前日志文件路径
-    private int currentHour = -1;                               // 当前小时，用于文件分割
+    private final ShardWriter[] shards;                           // 分片写入器
+    private final ScheduledExecutorService rotationScheduler;     // 文件轮转线程
+    private final ExecutorService mergeExecutor;                  // 分片合并线程，未开启合并时为 null
+    private final WriterMode mode;                                // 日志段写入方式
+    private final int mmapRegionSize;                             // 内存映射区域大小
+    private final long preOpenLeadMs;                             // 提前打开下一小时文件的时间
+    private final Map<Path, List<Path>> closedShardFiles = new HashMap<>();  // 规范文件 -> 已关闭的分片文件
+    private final LogSegment[] nextSegments;                      // 预先打开的下一小时日志段，仅轮转线程访问
+    private final LogCompactor logCompactor;                      // 已关闭日志文件的后台压缩器
+    private final Set<Path> openFiles = ConcurrentHashMap.newKeySet();  // 仍在写入或等待合并的文件，扫描时跳过
+    private final LogLineEncoder spillEncoder = new LogLineEncoder();  // 溢出文件的编码器
+    private final Object spillLock = new Object();                // 溢出文件写入锁
+    private LogSegment spillSegment;                              // 当前小时的溢出文件
+    private LocalDateTime spillHour;                              // 溢出文件所属的小时
 
-    public LogWriter() {
-        this.writeExecutor = Executors.newFixedThreadPool(
-                Runtime.getRuntime().availableProcessors()
-        );
+    public LogWriter(LogCompactor logCompactor,
+                     DirectBufferPool bufferPool,
+                     @Value("${log-collector.writer.buffer-size:262144}") int bufferSize,
+                     @Value("${log-collector.writer.mode:channel}") WriterMode mode,
+                     @Value("${log-collector.writer.mmap-region-size:67108864}") int mmapRegionSize,
+                     @Value("${log-collector.writer.pre-open-lead-ms:10000}") long preOpenLeadMs,
+                     @Value("${log-collector.writer.shards:0}") int shardCount,
+                     @Value("${log-collector.writer.merge-on-close:false}") boolean mergeOnClose,
+                     @Value("${log-collector.compaction.sweep-interval-ms:600000}") long sweepIntervalMs) {
+        this.logCompactor = logCompactor;
+        this.mode = mode;
+        this.mmapRegionSize = mmapRegionSize;
+        this.preOpenLeadMs = preOpenLeadMs;
+        // 分片数未配置时默认与 CPU 核心数一致
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new ShardWriter[count];
+        this.nextSegments = new LogSegment[count];
         createLogDirectory();
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            for (int i = 0; i < count; i++) {
+                shards[i] = new ShardWriter(openSegment(now, i), bufferPool, bufferSize, this::onSegmentClosed);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open log file", e);
+        }
+
+        this.mergeExecutor = mergeOnClose && count > 1
+                ? Executors.newSingleThreadExecutor(daemonThreadFactory("LogMerger"))
+                : null;
+        this.rotationScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("LogRotator"));
+        scheduleRotation(now);
+        if (logCompactor.isEnabled()) {
+            if (sweepIntervalMs > 0) {
+                rotationScheduler.scheduleWithFixedDelay(this::sweepUncompacted,
+                        0, sweepIntervalMs, TimeUnit.MILLISECONDS);
+            } else {
+                rotationScheduler.execute(this::sweepUncompacted);
+            }
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public ShardWriter getShard(int index) {
+        return shards[index];
     }
 
     /**
-     * 异步写入单条日志
-     * 使用 CompletableFuture 实现异步操作
+     * 各分片写缓冲区中尚未写出的字节总数，用于监控
      */
-    public void writeLog(LogEntry logEntry) {
-        CompletableFuture.runAsync(() -> {
-            try {
-                Path logFile = getOrCreateLogFile();
-                String logLine = formatLogEntry(logEntry);
-                Files.write(logFile,
-                        (logLine + System.lineSeparator()).getBytes(),
-                        StandardOpenOption.APPEND, StandardOpenOption.CREATE);
-            } catch (IOException e) {
-                e.printStackTrace();
+    public long bufferedBytes() {
+        long total = 0;
+        for (ShardWriter shard : shards) {
+            total += shard.bufferedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * RingBuffer 已满时由生产者线程直接写入溢出文件
+     * 这是慢路径：加锁、每条日志一次写调用，文件按小时切分，格式与分片文件一致
+     */
+    public void spill(LogEntry logEntry) throws IOException {
+        synchronized (spillLock) {
+            LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+            if (!hour.equals(spillHour)) {
+                closeSpillSegment(true);
+                Path path = logFile(hour, "_spill");
+                openFiles.add(path);
+                spillSegment = new ChannelLogSegment(path);
+                spillHour = hour;
             }
-        }, writeExecutor);
+            ByteBuffer line = ByteBuffer.allocate(spillEncoder.encodedLength(logEntry));
+            spillEncoder.encode(logEntry, line);
+            line.flip();
+            spillSegment.write(line);
+        }
     }
 
     /**
-     * 异步批量写入日志
-     * 将多条日志一次性写入文件
+     * @param compact 是否压缩，停机时当前小时的溢出文件重启后可能继续写入，不压缩，该小时结束后由扫描补交
      */
-    public void writeBatch(List<LogEntry> entries) {
-        CompletableFuture.runAsync(() -> {
+    private void closeSpillSegment(boolean compact) throws IOException {
+        if (spillSegment != null) {
+            spillSegment.close();
+            if (compact) {
+                logCompactor.submit(spillSegment.path());
+            }
+            openFiles.remove(spillSegment.path());
+            spillSegment = null;
+        }
+    }
+
+    /**
+     * 安排下一次轮转：整点前 preOpenLeadMs 打开下一小时的文件，整点时替换各分片的日志段
+     * 每小时根据当前时钟重新计算，避免定时误差累积
+     */
+    private void scheduleRotation(LocalDateTime now) {
+        LocalDateTime nextHour = now.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        long delayMs = Duration.between(now, nextHour).toMillis();
+        rotationScheduler.schedule(() -> prepareNextSegments(nextHour),
+                Math.max(0, delayMs - preOpenLeadMs), TimeUnit.MILLISECONDS);
+        rotationScheduler.schedule(() -> rotate(nextHour),
+                delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void prepareNextSegments(LocalDateTime hour) {
+        for (int i = 0; i < shards.length; i++) {
             try {
-                Path logFile = getOrCreateLogFile();List<String> lines = entries.stream()
-                        .map(this::formatLogEntry)
-                        .collect(Collectors.toList());
-                Files.write(logFile, lines,
-                        StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+                nextSegments[i] = openSegment(hour, i);
             } catch (IOException e) {
+                // 预打开失败时在整点再次尝试
                 e.printStackTrace();
             }
-        }, writeExecutor);
+        }
+    }
+
+    private void rotate(LocalDateTime hour) {
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                try {
+                    if (nextSegments[i] == null) {
+                        nextSegments[i] = openSegment(hour, i);
+                    }
+                    shards[i].rotateTo(nextSegments[i]);
+                    nextSegments[i] = null;
+                } catch (IOException e) {
+                    // 打开失败时该分片继续写入当前文件，下一个整点再轮转
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            scheduleRotation(LocalDateTime.now());
+        }
     }
 
     /**
-     * 获取或创建日志文件
-     * 按小时自动分割日志文件
-     * 文件命名格式：client_YYYYMMDD_HH.log
+     * 打开指定小时、指定分片的日志段
+     * 文件命名格式：client_YYYYMMDD_HH.log 或 client_YYYYMMDD_HH_sN.log
      */
-    private synchronized Path getOrCreateLogFile() throws IOException {
-        LocalDateTime now = LocalDateTime.now();
-        int hour = now.getHour();
-
-        if (currentHour != hour || currentLogFile == null) {
-            String fileName = String.format("%s%s_%02d%s",
-                    LOG_FILE_PREFIX,
-                    now.format(DateTimeFormatter.BASIC_ISO_DATE),
-                    hour,
-                    LOG_FILE_SUFFIX);
-            currentLogFile = Paths.get(LOG_DIR, fileName);
-            currentHour = hour;
-
-            if (!Files.exists(currentLogFile)) {
-                Files.createFile(currentLogFile);
+    private LogSegment openSegment(LocalDateTime hour, int shard) throws IOException {
+        Path path = logFile(hour, shards.length > 1 ? "_s" + shard : "");
+        openFiles.add(path);
+        if (mode == WriterMode.MMAP) {
+            return new MappedLogSegment(path, mmapRegionSize);
+        }
+        return new ChannelLogSegment(path);
+    }
+
+    private static Path logFile(LocalDateTime hour, String suffix) {
+        String fileName = String.format("%s%s_%02d%s%s",
+                LOG_FILE_PREFIX,
+                hour.format(DateTimeFormatter.BASIC_ISO_DATE),
+                hour.getHour(),
+                suffix,
+                LOG_FILE_SUFFIX);
+        return Paths.get(LOG_DIR, fileName);
+    }
+
+    /**
+     * 分片写线程关闭上一小时的日志段后回调
+     * 未开启合并时直接提交压缩；开启合并时，同一小时的所有分片都关闭后提交合并任务，合并完成后再压缩
+     */
+    private synchronized void onSegmentClosed(Path path) {
+        if (mergeExecutor == null) {
+            if (!deleteIfEmpty(path)) {
+                logCompactor.submit(path);
             }
+            openFiles.remove(path);
+            return;
         }
+        Path canonical = path.resolveSibling(
+                path.getFileName().toString().replaceFirst(SHARD_SUFFIX_PATTERN, ""));
+        List<Path> closed = closedShardFiles.computeIfAbsent(canonical, key -> new ArrayList<>());
+        closed.add(path);
+        if (closed.size() == shards.length) {
+            closedShardFiles.remove(canonical);
+            openFiles.add(canonical);
+            mergeExecutor.execute(() -> {
+                try {
+                    if (mergeShards(canonical, closed)) {
+                        logCompactor.submit(canonical);
+                    }
+                } finally {
+                    openFiles.remove(canonical);
+                    openFiles.removeAll(closed);
+                }
+            });
+        }
+    }
 
-        return currentLogFile;
+    /**
+     * 将分片文件依次追加到规范文件后删除分片文件
+     * 日志允许秒级乱序，分片之间不做按时间的归并
+     * @return 是否合并成功；所有分片都没有写入时不生成规范文件，返回 false
+     */
+    private boolean mergeShards(Path canonical, List<Path> closedFiles) {
+        List<Path> shardFiles = new ArrayList<>();
+        for (Path shardFile : closedFiles) {
+            if (!deleteIfEmpty(shardFile)) {
+                shardFiles.add(shardFile);
+            }
+        }
+        if (shardFiles.isEmpty()) {
+            return false;
+        }
+        try (FileChannel target = FileChannel.open(canonical,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (Path shardFile : shardFiles) {
+                try (FileChannel source = FileChannel.open(shardFile, StandardOpenOption.READ)) {
+                    long position = 0;
+                    long size = source.size();
+                    while (position < size) {
+                        position += source.transferTo(position, size - position, target);
+                    }
+                }
+            }
+            target.force(false);
+            for (Path shardFile : shardFiles) {
+                Files.delete(shardFile);
+            }
+            return true;
+        } catch (IOException e) {
+            // 合并失败时保留分片文件，数据不会丢失
+            e.printStackTrace();
+            return false;
+        }
     }
 
     /**
-     * 格式化日志条目
-     * 输出格式：ID|IP|时间|名称|随机数|处理时间|延迟时间
+     * 补偿压缩：将此前各小时仍未压缩的 .log 文件重新提交给 LogCompactor
+     * 提交时队列已满、压缩尚未完成时进程退出、停机时保留的溢出文件都会留下这样的文件；
+     * 当前小时及之后的文件、仍在写入或等待合并的文件不参与。旁边已有的 .gz 是中断的压缩留下的，压缩时覆盖
      */
-    private String formatLogEntry(LogEntry entry) {
-        return String.format("%s|%s|%s|%s|%d|%d|%d",
-                entry.getId(),
-                entry.getIp(),
-                entry.getEventTime(),
-                entry.getName(),
-                entry.getRandomNumber(),
-                entry.getProcessTime(),
-                entry.getDelayTime());
+    private void sweepUncompacted() {
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(LOG_DIR),
+                LOG_FILE_PREFIX + "*" + LOG_FILE_SUFFIX)) {
+            for (Path file : files) {
+                LocalDateTime hour = fileHour(file);
+                if (hour == null || !hour.isBefore(currentHour) || openFiles.contains(file)) {
+                    continue;
+                }
+                if (!deleteIfEmpty(file)) {
+                    logCompactor.submit(file);
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            // 定期任务抛出异常后不会再执行，下次扫描重试
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 从文件名中解析所属的小时，不是本组件生成的文件返回 null
+     */
+    private static LocalDateTime fileHour(Path file) {
+        Matcher matcher = LOG_FILE_PATTERN.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(matcher.group(1), DateTimeFormatter.BASIC_ISO_DATE)
+                    .atTime(Integer.parseInt(matcher.group(2)), 0);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 下一小时的文件为所有分片预先创建，没有收到日志的分片留下空文件，直接删除而不压缩
+     * @return 是否为空文件并已删除
+     */
+    private static boolean deleteIfEmpty(Path path) {
+        try {
+            if (Files.size(path) == 0) {
+                Files.delete(path);
+                return true;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        return r -> {
+            Thread thread = new Thread(r);
+            thread.setName(name);
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
     private void createLogDirectory() {
@@ -124,4 +383,32 @@ public class LogWriter {
             throw new RuntimeException("Failed to create log directory", e);
         }
     }
+
+    /**
+     * 关闭所有日志段，须在 Disruptor 消费线程停止并完成最后一次刷盘之后调用
+     */
+    @PreDestroy
+    public void close() {
+        rotationScheduler.shutdownNow();
+        if (mergeExecutor != null) {
+            mergeExecutor.shutdown();
+        }
+        synchronized (spillLock) {
+            try {
+                closeSpillSegment(false);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        for (int i = 0; i < shards.length; i++) {
+            try {
+                shards[i].close();
+                if (nextSegments[i] != null) {
+                    nextSegments[i].close();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 }
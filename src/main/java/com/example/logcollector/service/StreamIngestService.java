@@ -0,0 +1,301 @@
+package com.example.logcollector.service;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.logcollector.codec.ArchiveFormat;
+import com.example.logcollector.codec.BatchLineParser;
+import com.example.logcollector.codec.LogEntryJsonReader;
+import com.example.logcollector.codec.RejectReason;
+import com.example.logcollector.codec.TarEntryReader;
+import com.example.logcollector.model.IngestResult;
+import com.example.logcollector.model.LogEntry;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 流式接入服务
+ * NDJSON：使用 Jackson 的流式 JsonParser 逐条解析请求体，每解析出一条日志立即发布到 RingBuffer，
+ * 不缓存整个请求体；RingBuffer 已满时发布阻塞，读取随之暂停，由 TCP 流控把压力传回客户端
+ * 每条记录解析到同一个临时 LogEntry 后复制进槽位：读取记录期间可能等待网络，不能提前占用槽位
+ * 压缩包：请求体按魔数识别为 ZIP、gzip、tar、tar.gz 或文本后边接收边解压，解出的完整行直接解析到槽位，
+ * 被拒绝的行写入死信文件
+ */
+@Service
+public class StreamIngestService {
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;     // gzip 解压缓冲区大小
+    private static final int ARCHIVE_BUFFER_SIZE = 64 * 1024;  // 压缩包请求体的读取缓冲区大小
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final LogService logService;
+    private final DeadLetterSink deadLetters;
+    private final JsonFactory jsonFactory;
+    private final LogEntryJsonReader entryReader = new LogEntryJsonReader();
+    private final long maxZipRequestBytes;                     // 压缩包请求体（压缩后）大小上限
+    private final long maxZipUncompressedBytes;                // 压缩包解压后的总大小上限
+    private final int maxZipLineBytes;                         // 压缩包中单行长度上限，也是行缓冲区大小
+
+    public StreamIngestService(LogService logService,
+                               DeadLetterSink deadLetters,
+                               ObjectMapper objectMapper,
+                               @Value("${log-collector.zip-stream.max-request-bytes:104857600}") long maxZipRequestBytes,
+                               @Value("${log-collector.zip-stream.max-uncompressed-bytes:1073741824}") long maxZipUncompressedBytes,
+                               @Value("${log-collector.zip-stream.max-line-bytes:65536}") int maxZipLineBytes) {
+        this.logService = logService;
+        this.deadLetters = deadLetters;
+        this.jsonFactory = objectMapper.getFactory();
+        this.maxZipRequestBytes = maxZipRequestBytes;
+        this.maxZipUncompressedBytes = maxZipUncompressedBytes;
+        this.maxZipLineBytes = maxZipLineBytes;
+    }
+
+    public long getMaxZipRequestBytes() {
+        return maxZipRequestBytes;
+    }
+
+    /**
+     * 处理换行分隔的 JSON 日志流
+     * 字段值不合法的记录计为拒绝并跳过；JSON 语法错误或读取失败时无法继续定位下一条记录，
+     * 停止处理并在结果中返回错误信息，已发布的日志不受影响
+     *
+     * @param body 请求体
+     * @param gzip 请求体是否为 gzip 编码
+     */
+    public IngestResult processStream(InputStream body, boolean gzip) {
+        IngestResult result = new IngestResult();
+        long accepted = 0;
+        long rejected = 0;
+        LogEntry logEntry = new LogEntry();
+        try (InputStream in = gzip ? new GZIPInputStream(body, GZIP_BUFFER_SIZE) : body;
+             JsonParser parser = jsonFactory.createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    // 顶层不是对象的记录直接跳过
+                    parser.skipChildren();
+                    rejected++;
+                    continue;
+                }
+                if (!entryReader.read(parser, logEntry)) {
+                    rejected++;
+                    continue;
+                }
+                logService.processBulkLog(logEntry);
+                accepted++;
+            }
+        } catch (IOException e) {
+            result.setError(e.getMessage());
+        }
+        result.setAccepted(accepted);
+        result.setRejected(rejected);
+        return result;
+    }
+
+    /**
+     * 处理以原始请求体上传的压缩包，格式与批量上报相同：ZIP、gzip、tar、tar.gz 或未压缩的文本，
+     * 按开头的魔数识别，魔数无法确定时参考 Content-Type；每行为 ID|IP|时间|名称|随机数 或 JSON 对象
+     * 不经过 multipart 解析，也不落临时文件：解压与解析随网络读取同步进行，第一行解压出来即可发布
+     * 行从复用的行缓冲区直接解析到 RingBuffer 槽位；无法解析或超过长度上限的行计为拒绝
+     * 请求体不能重放，因此不做批量上报的重试；读取失败、超过大小上限或压缩包损坏时停止处理，
+     * 在结果中返回错误信息，已发布的日志不受影响
+     *
+     * @param body 请求体
+     * @param contentType 请求的 Content-Type，可以为 null
+     */
+    public IngestResult processArchiveStream(InputStream body, String contentType) {
+        IngestResult result = new IngestResult();
+        ArchiveLineReader reader = new ArchiveLineReader();
+        try (InputStream in = new BufferedInputStream(
+                new LimitedInputStream(body, maxZipRequestBytes, "Request body"), ARCHIVE_BUFFER_SIZE)) {
+            ArchiveFormat format = detect(in, contentType, false);
+            if (format == ArchiveFormat.ZIP) {
+                readZip(new ZipInputStream(in), reader, result);
+            } else if (format == ArchiveFormat.TAR) {
+                readTar(in, reader);
+            } else if (format == ArchiveFormat.PLAIN) {
+                reader.readEntry(in, LogService.PLAIN_ENTRY);
+            } else {
+                InputStream gzip = new BufferedInputStream(new GZIPInputStream(in, GZIP_BUFFER_SIZE), ARCHIVE_BUFFER_SIZE);
+                if (detect(gzip, contentType, true) == ArchiveFormat.TAR_GZIP) {
+                    readTar(gzip, reader);
+                } else {
+                    reader.readEntry(gzip, LogService.GZIP_ENTRY);
+                }
+            }
+        } catch (IOException e) {
+            result.setError(e.getMessage());
+        }
+        result.setAccepted(reader.accepted);
+        result.setRejected(reader.rejected);
+        return result;
+    }
+
+    /**
+     * 查看流的开头识别格式，不消耗内容
+     * @param gzipContent 是否为 gzip 解压后的内容，此时只区分 TAR_GZIP 和 GZIP
+     */
+    private static ArchiveFormat detect(InputStream in, String contentType, boolean gzipContent) throws IOException {
+        byte[] head = new byte[ArchiveFormat.HEAD_BYTES];
+        in.mark(head.length);
+        int length = ArchiveFormat.readHead(in, head);
+        in.reset();
+        return gzipContent
+                ? ArchiveFormat.detectGzipContent(head, length, contentType)
+                : ArchiveFormat.detect(head, length, contentType);
+    }
+
+    private static void readZip(ZipInputStream zis, ArchiveLineReader reader, IngestResult result) throws IOException {
+        boolean found = false;
+        ZipEntry entry;
+        while ((entry = zis.getNextEntry()) != null) {
+            found = true;
+            reader.readEntry(zis, entry.getName());
+        }
+        if (!found) {
+            result.setError("Request body is not a ZIP archive or contains no entries");
+        }
+    }
+
+    private static void readTar(InputStream in, ArchiveLineReader reader) throws IOException {
+        TarEntryReader tar = new TarEntryReader(in, 0);
+        String name;
+        while ((name = tar.getNextEntry()) != null) {
+            reader.readEntry(tar, name);
+        }
+    }
+
+    /**
+     * 单个请求的行读取状态，解压输出按换行切分后逐行发布
+     */
+    private final class ArchiveLineReader {
+        private final byte[] lineBuffer = new byte[maxZipLineBytes];
+        private final ByteBuffer line = ByteBuffer.wrap(lineBuffer);
+        private final BatchLineParser parser = new BatchLineParser(jsonFactory);
+        private long uncompressedBytes;                        // 已解压的字节数
+        private String entryName;                              // 当前条目名
+        private long lineNumber;                               // 当前条目中已读完的行数
+        private long accepted;
+        private long rejected;
+
+        /**
+         * 读取当前条目直到结束；条目末尾没有换行符的最后一行与 readLine 一样按完整的一行处理
+         */
+        private void readEntry(InputStream in, String entryName) throws IOException {
+            this.entryName = entryName;
+            lineNumber = 0;
+            int length = 0;                                    // 缓冲区中未处理的字节数
+            boolean discarding = false;                        // 是否正在丢弃超长行
+            int read;
+            while ((read = in.read(lineBuffer, length, lineBuffer.length - length)) != -1) {
+                uncompressedBytes += read;
+                if (uncompressedBytes > maxZipUncompressedBytes) {
+                    throw new IOException("Uncompressed content exceeds " + maxZipUncompressedBytes + " bytes");
+                }
+                int limit = length + read;
+                int lineStart = 0;
+                for (int i = length; i < limit; i++) {
+                    if (lineBuffer[i] == LINE_FEED) {
+                        lineNumber++;
+                        if (discarding) {
+                            discarding = false;
+                        } else {
+                            publish(lineStart, i);
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                length = limit - lineStart;
+                if (lineStart > 0) {
+                    System.arraycopy(lineBuffer, lineStart, lineBuffer, 0, length);
+                } else if (length == lineBuffer.length) {
+                    // 单行超过缓冲区容量，丢弃到下一个换行符
+                    if (!discarding) {
+                        rejected++;
+                        deadLetters.reject("zip-stream", entryName, lineNumber + 1, RejectReason.LINE_TOO_LONG,
+                                line, 0, length);
+                        discarding = true;
+                    }
+                    length = 0;
+                }
+            }
+            if (length > 0 && !discarding) {
+                lineNumber++;
+                publish(0, length);
+            }
+        }
+
+        private void publish(int start, int end) {
+            if (end > start && lineBuffer[end - 1] == CARRIAGE_RETURN) {
+                end--;
+            }
+            if (end == start) {
+                return;
+            }
+            if (logService.processBulkLine(parser, line, start, end)) {
+                accepted++;
+            } else {
+                rejected++;
+                deadLetters.reject("zip-stream", entryName, lineNumber, parser.failure(), line, start, end);
+            }
+        }
+    }
+
+    /**
+     * 读取超过上限时抛出 IOException 的输入流，用于限制没有 Content-Length 的分块请求体
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private final String description;
+        private long count;
+
+        private LimitedInputStream(InputStream in, long limit, String description) {
+            super(in);
+            this.limit = limit;
+            this.description = description;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) throws IOException {
+            count += n;
+            if (count > limit) {
+                throw new IOException(description + " exceeds " + limit + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.logcollector.writer;
+
+/**
+ * 实时日志的写入确认方式，通过 log-collector.writer.durability 选择
+ */
+public enum DurabilityMode {
+    FIRE_AND_FORGET,    // 进入 RingBuffer 即返回成功，写入失败时丢弃
+    ACK_AFTER_WRITE,    // 包含该日志的分组写入完成后返回
+    ACK_AFTER_FSYNC     // 分组写入并 force 落盘后返回
+}
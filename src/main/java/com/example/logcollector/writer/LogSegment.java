@@ -0,0 +1,32 @@
+package com.example.logcollector.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * 小时日志文件段
+ * 由写线程独占使用，负责把已编码的日志字节追加到对应的小时文件
+ */
+public interface LogSegment {
+
+    /**
+     * @return 段对应的文件路径
+     */
+    Path path();
+
+    /**
+     * 追加缓冲区中剩余的全部字节
+     */
+    void write(ByteBuffer src) throws IOException;
+
+    /**
+     * 将已写入的数据强制落盘
+     */
+    void force() throws IOException;
+
+    /**
+     * 关闭段并释放文件资源
+     */
+    void close() throws IOException;
+}
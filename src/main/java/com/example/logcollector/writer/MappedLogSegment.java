@@ -0,0 +1,113 @@
+package com.example.logcollector.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 基于内存映射的日志段
+ * 预先映射一段固定大小的文件区域，写入只是内存拷贝，不产生系统调用；
+ * 区域写满后先将其落盘再映射下一段，force 只需处理当前区域；关闭时把文件截断到实际写入的长度
+ * 进程异常退出时文件尾部会残留预分配的零字节，可能还有写到一半的行；重新打开时从末尾向前找到最后一个换行符，
+ * 截断其后的内容再开始映射，续写的日志紧接在最后一条完整的行之后
+ */
+public class MappedLogSegment implements LogSegment {
+    private final Path path;
+    private final FileChannel channel;
+    private static final int SCAN_CHUNK_SIZE = 64 * 1024;  // 打开时向前查找内容末尾的读取块大小
+
+    private final int regionSize;             // 每次映射的区域大小
+    private MappedByteBuffer region;          // 当前映射区域
+    private long regionStart;                 // 当前区域在文件中的起始偏移
+
+    public MappedLogSegment(Path path, int regionSize) throws IOException {
+        this.path = path;
+        this.regionSize = regionSize;
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // 重启后续写同一小时的文件时，从已有内容末尾开始映射
+        long end = contentEnd(channel);
+        if (end < channel.size()) {
+            channel.truncate(end);
+        }
+        map(end);
+    }
+
+    @Override
+    public Path path() {
+        return path;
+    }
+
+    @Override
+    public void write(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            if (!region.hasRemaining()) {
+                // 替换前落盘：分组提交跨越区域边界时，force 之后的确认同样覆盖前一区域中的数据
+                region.force();
+                map(regionStart + region.position());
+            }
+            int length = Math.min(src.remaining(), region.remaining());
+            int limit = src.limit();
+            src.limit(src.position() + length);
+            region.put(src);
+            src.limit(limit);
+        }
+    }
+
+    @Override
+    public void force() {
+        region.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        region.force();
+        channel.truncate(regionStart + region.position());
+        channel.close();
+        region = null;
+    }
+
+    /**
+     * 最后一个换行符之后的位置：跳过尾部的零字节，末尾的行不完整时一并丢弃
+     */
+    private long contentEnd(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(SCAN_CHUNK_SIZE, Math.max(size, 1)));
+        long position = size;
+        long lastNonZero = -1;
+        while (position > 0) {
+            int length = (int) Math.min(chunk.capacity(), position);
+            position -= length;
+            chunk.clear().limit(length);
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk, position + chunk.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = chunk.position() - 1; i >= 0; i--) {
+                byte b = chunk.get(i);
+                if (b == '\n') {
+                    if (lastNonZero > position + i) {
+                        System.err.println("Dropped " + (lastNonZero - position - i) + " bytes of an incomplete line at the end of " + path);
+                    }
+                    return position + i + 1;
+                }
+                if (b != 0 && lastNonZero < 0) {
+                    lastNonZero = position + i;
+                }
+            }
+        }
+        if (lastNonZero >= 0) {
+            System.err.println("Dropped " + (lastNonZero + 1) + " bytes of an incomplete line at the end of " + path);
+        }
+        return 0;
+    }
+
+    private void map(long position) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, position, regionSize);
+        regionStart = position;
+    }
+}
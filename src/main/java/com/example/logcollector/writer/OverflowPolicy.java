@@ -0,0 +1,10 @@
+package com.example.logcollector.writer;
+
+/**
+ * RingBuffer 已满时实时日志生产者的处理方式，通过 log-collector.writer.overflow-policy 选择
+ */
+public enum OverflowPolicy {
+    BLOCK,      // 阻塞等待空位，写入变慢时请求随之变慢
+    REJECT,     // 立即拒绝，接口返回 503
+    SPILL       // 由生产者线程直接写入溢出文件 client_YYYYMMDD_HH_spill.log
+}
@@ -0,0 +1,9 @@
+package com.example.logcollector.writer;
+
+/**
+ * 日志到写入分片的路由方式，通过 log-collector.writer.shard-routing 选择
+ */
+public enum ShardRouting {
+    ID,         // 按 LogEntry.id 的哈希值路由，同一 id 总是写入同一分片
+    THREAD      // 按发布日志的生产者线程路由
+}
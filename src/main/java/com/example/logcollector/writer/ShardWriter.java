@@ -0,0 +1,133 @@
+package com.example.logcollector.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import com.example.logcollector.buffer.DirectBufferPool;
+import com.example.logcollector.codec.LogLineEncoder;
+import com.example.logcollector.model.LogEntry;
+
+/**
+ * 单个分片的日志写入器
+ * 独占一个日志文件、一块从池中借出的堆外写缓冲区，只允许该分片的 Disruptor 消费线程调用，不加锁；
+ * 日志直接编码到堆外缓冲区，刷盘时由 FileChannel 直接写出，不经过堆内拷贝；
+ * 新的日志段由轮转线程放入队列发布，写线程在刷盘时按顺序切换并关闭自己持有的旧日志段；
+ * 写线程长时间没有刷盘时连续发布的多个日志段同样依次切换，中间的日志段不会被遗漏
+ */
+public class ShardWriter {
+    private final LogLineEncoder encoder = new LogLineEncoder();  // 日志行编码器
+    private final DirectBufferPool bufferPool;                    // 堆外缓冲区池
+    private final ByteBuffer writeBuffer;                         // 借出的堆外写缓冲区
+    private final Consumer<Path> closeListener;                   // 旧日志段关闭后的回调
+
+    private final Queue<LogSegment> rotatedSegments = new ConcurrentLinkedQueue<>();  // 轮转线程发布、尚未切换的日志段
+    private LogSegment writingSegment;                            // 写线程正在使用的日志段
+
+    public ShardWriter(LogSegment segment, DirectBufferPool bufferPool, int bufferSize,
+                       Consumer<Path> closeListener) {
+        this.bufferPool = bufferPool;
+        this.writeBuffer = bufferPool.lease(bufferSize);
+        this.closeListener = closeListener;
+        this.writingSegment = segment;
+    }
+
+    /**
+     * 追加单条日志到写缓冲区
+     * 缓冲区空间不足时先刷盘，真正的写文件由 flush 统一完成
+     * @return 本次追加的字节数
+     */
+    public int writeLog(LogEntry logEntry) throws IOException {
+        int length = encoder.encodedLength(logEntry);
+        if (writeBuffer.remaining() < length) {
+            flush();
+        }
+        if (writeBuffer.remaining() < length) {
+            // 单行超过缓冲区容量，直接写入文件
+            ByteBuffer line = ByteBuffer.allocate(length);
+            encoder.encode(logEntry, line);
+            line.flip();
+            writingSegment.write(line);
+            return length;
+        }
+        encoder.encode(logEntry, writeBuffer);
+        return length;
+    }
+
+    /**
+     * 将缓冲区中的内容写入当前日志段
+     * 由 Disruptor 批次结束、缓冲区写满和等待超时触发
+     */
+    public void flush() throws IOException {
+        LogSegment segment;
+        while ((segment = rotatedSegments.peek()) != null) {
+            // 整点已轮转：缓冲区中剩余的上一小时日志写入旧文件，落盘后将其关闭
+            LogSegment closing = writingSegment;
+            drainTo(closing);
+            closing.force();
+            closing.close();
+            writingSegment = segment;
+            rotatedSegments.poll();
+            closeListener.accept(closing.path());
+        }
+        drainTo(writingSegment);
+    }
+
+    /**
+     * 是否有已发布但尚未切换的日志段，空闲分片据此在批次结束时刷盘完成切换
+     */
+    public boolean isRotationPending() {
+        return !rotatedSegments.isEmpty();
+    }
+
+    /**
+     * 将已写入的数据强制落盘
+     */
+    public void force() throws IOException {
+        writingSegment.force();
+    }
+
+    /**
+     * 写缓冲区中尚未写出的字节数，由监控线程读取，数值可能略有滞后
+     */
+    public int bufferedBytes() {
+        return writeBuffer.position();
+    }
+
+    /**
+     * 发布下一小时的日志段，由轮转线程调用
+     */
+    public void rotateTo(LogSegment segment) {
+        rotatedSegments.add(segment);
+    }
+
+    /**
+     * 刷盘并关闭日志段，归还写缓冲区，须在消费线程停止之后调用
+     */
+    public void close() throws IOException {
+        try {
+            flush();
+            writingSegment.close();
+        } finally {
+            bufferPool.release(writeBuffer);
+        }
+    }
+
+    /**
+     * 写入失败时缓冲区同样被清空，本次分组的日志视为丢弃，由调用方决定如何通知客户端
+     */
+    private void drainTo(LogSegment segment) throws IOException {
+        if (writeBuffer.position() == 0) {
+            return;
+        }
+        writeBuffer.flip();
+        try {
+            segment.write(writeBuffer);
+        } finally {
+            writeBuffer.clear();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.logcollector.writer;
+
+/**
+ * 日志段的写入方式，通过 log-collector.writer.mode 选择
+ */
+public enum WriterMode {
+    CHANNEL,    // FileChannel 追加写
+    MMAP        // 内存映射写
+}
@@ -0,0 +1,41 @@
+package com.example.logcollector.codec;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * 按当前线程的累计分配字节数统计每次操作的分配量，JVM 不支持时跳过调用它的测试
+ */
+final class Allocations {
+    private static final int WARMUP = 200_000;                  // 先让 JIT 编译热点代码
+
+    private Allocations() {
+    }
+
+    /**
+     * 预热后执行 op(0) 到 op(ops - 1)
+     * @return 平均每次操作分配的字节数
+     */
+    static double bytesPerOp(int ops, IntConsumer op) {
+        java.lang.management.ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(mxBean instanceof ThreadMXBean, "thread allocation counter is not available");
+        ThreadMXBean threads = (ThreadMXBean) mxBean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "thread allocation counter is not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        for (int i = 0; i < WARMUP; i++) {
+            op.accept(i % ops);
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ops; i++) {
+            op.accept(i);
+        }
+        long after = threads.getThreadAllocatedBytes(threadId);
+        return (after - before) / (double) ops;
+    }
+}
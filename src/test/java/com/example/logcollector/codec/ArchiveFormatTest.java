@@ -0,0 +1,90 @@
+package com.example.logcollector.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ArchiveFormat 按魔数识别格式，魔数无法确定时参考 Content-Type
+ */
+class ArchiveFormatTest {
+
+    @Test
+    void detectsByMagic() {
+        assertEquals(ArchiveFormat.ZIP, detect(new byte[]{'P', 'K', 3, 4, 20, 0}, "text/plain"));
+        assertEquals(ArchiveFormat.ZIP, detect(new byte[]{'P', 'K', 5, 6, 0, 0}, null));
+        assertEquals(ArchiveFormat.GZIP, detect(new byte[]{(byte) 0x1f, (byte) 0x8b, 8, 0}, "application/zip"));
+        assertEquals(ArchiveFormat.TAR, detect(tarHead(), "application/octet-stream"));
+        assertEquals(ArchiveFormat.PLAIN, detect(bytes("id-1|10.0.0.1|2026-10-15 12:00:00|login|1\n"), null));
+    }
+
+    @Test
+    void fallsBackToContentType() {
+        // 内容太短或损坏，按声明的类型交给对应的解码器
+        byte[] head = bytes("PK");
+        assertEquals(ArchiveFormat.ZIP, detect(head, "application/zip"));
+        assertEquals(ArchiveFormat.ZIP, detect(head, "application/x-zip-compressed"));
+        assertEquals(ArchiveFormat.GZIP, detect(head, "application/gzip"));
+        assertEquals(ArchiveFormat.GZIP, detect(head, "application/x-tgz"));
+        assertEquals(ArchiveFormat.GZIP, detect(head, "Application/X-GZIP"));
+        assertEquals(ArchiveFormat.TAR, detect(head, "application/x-tar"));
+        assertEquals(ArchiveFormat.PLAIN, detect(head, "text/plain"));
+        assertEquals(ArchiveFormat.PLAIN, detect(new byte[0], null));
+    }
+
+    @Test
+    void ignoresTarMagicBeyondLength() {
+        byte[] head = tarHead();
+        assertEquals(ArchiveFormat.PLAIN, ArchiveFormat.detect(head, 261, null));
+        assertEquals(ArchiveFormat.TAR, ArchiveFormat.detect(head, 262, null));
+    }
+
+    @Test
+    void detectsTarInsideGzip() {
+        byte[] text = bytes("line\n");
+        assertEquals(ArchiveFormat.TAR_GZIP, ArchiveFormat.detectGzipContent(tarHead(), ArchiveFormat.HEAD_BYTES, null));
+        assertEquals(ArchiveFormat.GZIP, ArchiveFormat.detectGzipContent(text, text.length, "application/gzip"));
+        // 没有 ustar 标记的旧式 tar 只能靠 Content-Type
+        assertEquals(ArchiveFormat.TAR_GZIP, ArchiveFormat.detectGzipContent(text, text.length, "application/x-tar"));
+        assertEquals(ArchiveFormat.TAR_GZIP, ArchiveFormat.detectGzipContent(text, text.length, "application/x-tgz"));
+    }
+
+    @Test
+    void readHeadFillsAcrossShortReads() throws IOException {
+        byte[] content = new byte[1000];
+        content[999] = 1;
+        // 每次最多返回 7 个字节
+        InputStream in = new ByteArrayInputStream(content) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        byte[] head = new byte[ArchiveFormat.HEAD_BYTES];
+        assertEquals(ArchiveFormat.HEAD_BYTES, ArchiveFormat.readHead(in, head));
+        assertEquals(1000 - ArchiveFormat.HEAD_BYTES, in.available());
+
+        byte[] shortHead = new byte[ArchiveFormat.HEAD_BYTES];
+        assertEquals(5, ArchiveFormat.readHead(new ByteArrayInputStream(bytes("line\n")), shortHead));
+    }
+
+    private static ArchiveFormat detect(byte[] head, String contentType) {
+        return ArchiveFormat.detect(head, head.length, contentType);
+    }
+
+    private static byte[] tarHead() {
+        byte[] head = new byte[ArchiveFormat.HEAD_BYTES];
+        System.arraycopy(bytes("a.log"), 0, head, 0, 5);
+        System.arraycopy(bytes("ustar"), 0, head, 257, 5);
+        return head;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
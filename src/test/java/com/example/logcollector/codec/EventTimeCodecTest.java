@@ -0,0 +1,126 @@
+package com.example.logcollector.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * EventTimeCodec 的解析和格式化结果必须与 DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss") 一致，
+ * 同一秒重复出现时不产生对象分配
+ */
+class EventTimeCodecTest {
+    private static final int VALUES = 500_000;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final EventTimeCodec codec = new EventTimeCodec();
+
+    @Test
+    void parseMatchesFormatterForRandomAndCorruptedInput() {
+        Random random = new Random(20261015L);
+        String previous = "2026-10-15 12:00:00";
+        for (int i = 0; i < VALUES; i++) {
+            // 一部分重复上一个值，覆盖缓存命中的路径
+            String text = random.nextInt(4) == 0 ? previous : randomText(random);
+            assertParsesLikeFormatter(text);
+            previous = text;
+        }
+    }
+
+    @Test
+    void parseMatchesFormatterForEdgeCases() {
+        String[] texts = {
+                "0000-01-01 00:00:00", "0001-01-01 00:00:00", "9999-12-31 23:59:59",
+                "2024-02-29 00:00:00", "2023-02-29 00:00:00", "2023-02-31 12:00:00", "2024-04-31 00:00:00",
+                "2024-12-31 24:00:00", "2024-12-31 24:00:01", "2024-12-31 24:01:00", "2024-12-31 25:00:00",
+                "2024-00-10 00:00:00", "2024-13-10 00:00:00", "2024-01-00 00:00:00", "2024-01-32 00:00:00",
+                "2024-01-01 00:60:00", "2024-01-01 00:00:60", "2024-01-01T00:00:00", "2024-01-01 00:00:0",
+                "2024-01-01 00:00:000", "2024-1-01 00:00:00", "+2024-01-01 00:00", "", "2024-01-01 0a:00:00",
+        };
+        for (String text : texts) {
+            assertParsesLikeFormatter(text);
+            // 再解析一次，走缓存命中的路径
+            assertParsesLikeFormatter(text);
+        }
+    }
+
+    @Test
+    void formatMatchesFormatter() {
+        Random random = new Random(20261016L);
+        LocalDateTime[] edges = {
+                LocalDateTime.of(1, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999_999_999),
+                LocalDateTime.of(0, 1, 1, 0, 0), LocalDateTime.of(-1, 6, 1, 0, 0), LocalDateTime.of(10000, 1, 1, 0, 0),
+                LocalDateTime.MIN, LocalDateTime.MAX,
+        };
+        for (LocalDateTime value : edges) {
+            assertEquals(FORMATTER.format(value), codec.format(value), value.toString());
+        }
+        LocalDateTime previous = LocalDateTime.of(2026, 10, 15, 12, 0);
+        for (int i = 0; i < VALUES; i++) {
+            LocalDateTime value = random.nextInt(4) == 0
+                    ? previous
+                    : LocalDateTime.of(1 + random.nextInt(9999), 1 + random.nextInt(12), 1 + random.nextInt(28),
+                    random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1_000_000_000));
+            assertEquals(FORMATTER.format(value), codec.format(value), value.toString());
+            previous = value;
+        }
+    }
+
+    @Test
+    void repeatedSecondDoesNotAllocate() {
+        ByteBuffer buffer = ByteBuffer.wrap("2026-10-15 12:00:00".getBytes(StandardCharsets.US_ASCII));
+        double parse = Allocations.bytesPerOp(100_000,
+                i -> codec.parse(buffer, 0, EventTimeCodec.LENGTH));
+        LocalDateTime value = LocalDateTime.of(2026, 10, 15, 12, 0);
+        double format = Allocations.bytesPerOp(100_000, i -> codec.format(value));
+
+        assertTrue(parse < 1, "parse allocates " + parse + " bytes/op");
+        assertTrue(format < 1, "format allocates " + format + " bytes/op");
+    }
+
+    private void assertParsesLikeFormatter(String text) {
+        LocalDateTime expected;
+        try {
+            expected = LocalDateTime.parse(text, FORMATTER);
+        } catch (DateTimeParseException e) {
+            expected = null;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        // 前后留出其他内容，确认只读取指定范围
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 2);
+        buffer.put((byte) '|').put(bytes).put((byte) '|');
+        char[] chars = ("|" + text + "|").toCharArray();
+
+        assertEquals(expected, codec.parse(buffer, 1, 1 + bytes.length), text);
+        assertEquals(expected, codec.parse(chars, 1, text.length()), text);
+    }
+
+    /**
+     * 各字段在略超出合法范围内随机取值，部分输入再随机改动一个字符或长度
+     */
+    private static String randomText(Random random) {
+        String text = String.format("%04d-%02d-%02d %02d:%02d:%02d",
+                random.nextInt(10_000), random.nextInt(14), random.nextInt(33),
+                random.nextInt(26), random.nextInt(61), random.nextInt(61));
+        switch (random.nextInt(8)) {
+            case 0: {
+                char[] chars = text.toCharArray();
+                chars[random.nextInt(chars.length)] = (char) (' ' + random.nextInt(95));
+                return new String(chars);
+            }
+            case 1:
+                return text.substring(0, random.nextInt(text.length()));
+            case 2:
+                return text + random.nextInt(10);
+            default:
+                return text;
+        }
+    }
+}
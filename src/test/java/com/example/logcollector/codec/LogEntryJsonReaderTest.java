@@ -0,0 +1,103 @@
+package com.example.logcollector.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.logcollector.config.JacksonConfig;
+import com.example.logcollector.model.LogEntry;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 流式读取 eventTime 的结果必须与 databind 路径（JacksonConfig 配置的 ObjectMapper）一致
+ */
+class LogEntryJsonReaderTest {
+    private static final String[] EVENT_TIMES = {
+            "\"2024-10-14 09:15:30\"",
+            "\"2024-02-29 23:59:59\"",
+            "\"2023-02-29 00:00:00\"",
+            "\"2024-10-14T09:15:30\"",
+            "\"2024-10-14 9:15:30\"",
+            "\"\"",
+            "[2024,10,14,9,15,30]",
+            "[2024,10,14,9,15,30,123000000]",
+            "[2024,10,14,9,15]",
+            "[2024,13,14,9,15,30]",
+            "[]",
+            "1728897330000",
+            "1.5",
+            "true",
+            "{\"year\":2024}",
+    };
+
+    private final ObjectMapper mapper = springObjectMapper();
+    private final LogEntryJsonReader reader = new LogEntryJsonReader();
+
+    @Test
+    void eventTimeMatchesDatabind() throws IOException {
+        for (String eventTime : EVENT_TIMES) {
+            String json = "{\"id\":\"a\",\"eventTime\":" + eventTime + ",\"name\":\"n\"}";
+            LogEntry expected;
+            try {
+                expected = mapper.readValue(json, LogEntry.class);
+            } catch (JsonProcessingException e) {
+                expected = null;
+            }
+
+            LogEntry actual = new LogEntry();
+            boolean valid;
+            try (JsonParser parser = mapper.getFactory().createParser(json)) {
+                assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+                valid = reader.read(parser, actual);
+                // 非法值同样要读完整个对象
+                assertEquals(JsonToken.END_OBJECT, parser.currentToken(), json);
+                assertNull(parser.nextToken(), json);
+            }
+
+            assertEquals(expected != null, valid, json);
+            if (expected != null) {
+                assertEquals(expected.getEventTime(), actual.getEventTime(), json);
+                assertEquals("n", actual.getName(), json);
+            }
+        }
+    }
+
+    @Test
+    void rejectsNonStringEventTimeWithoutCodec() throws IOException {
+        String json = "{\"eventTime\":[2024,10,14,9,15,30],\"id\":\"a\"}";
+        LogEntry entry = new LogEntry();
+        try (JsonParser parser = new JsonFactory().createParser(json)) {
+            parser.nextToken();
+            assertFalse(reader.read(parser, entry));
+            assertEquals(JsonToken.END_OBJECT, parser.currentToken());
+        }
+        assertEquals("a", entry.getId());
+    }
+
+    @Test
+    void parsesStringEventTimeWithoutCodec() throws IOException {
+        LogEntry entry = new LogEntry();
+        try (JsonParser parser = new JsonFactory().createParser("{\"eventTime\":\"2024-10-14 09:15:30\"}")) {
+            parser.nextToken();
+            assertTrue(reader.read(parser, entry));
+        }
+        assertEquals(LocalDateTime.of(2024, 10, 14, 9, 15, 30), entry.getEventTime());
+    }
+
+    private static ObjectMapper springObjectMapper() {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        new JacksonConfig().jsonCustomizer().customize(builder);
+        return builder.build();
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.logcollector.codec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.logcollector.model.LogEntry;
+
+/**
+ * LogLineEncoder 的输出必须与原来的 String.format 格式逐字节一致，稳态下不产生对象分配
+ */
+class LogLineEncoderTest {
+    private static final int ENTRIES = 200_000;
+
+    private final LogLineEncoder encoder = new LogLineEncoder();
+
+    @Test
+    void matchesStringFormatForRandomEntries() {
+        Random random = new Random(20261015L);
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        LocalDateTime previous = LocalDateTime.of(2026, 10, 15, 12, 0);
+        for (int i = 0; i < ENTRIES; i++) {
+            LogEntry entry = randomEntry(random, previous);
+            previous = entry.getEventTime() != null ? entry.getEventTime() : previous;
+            assertEncodesLikeFormat(entry, buffer);
+        }
+    }
+
+    @Test
+    void matchesStringFormatForEdgeCases() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        LogEntry nulls = new LogEntry();
+        assertEncodesLikeFormat(nulls, buffer);
+
+        LocalDateTime[] times = {
+                LocalDateTime.of(2026, 1, 1, 0, 0),
+                LocalDateTime.of(2026, 1, 1, 0, 0, 5),
+                LocalDateTime.of(2026, 1, 1, 0, 0, 0, 1_000_000),
+                LocalDateTime.of(2026, 1, 1, 0, 0, 0, 1_000),
+                LocalDateTime.of(2026, 1, 1, 0, 0, 0, 1),
+                LocalDateTime.of(0, 1, 1, 0, 0, 0, 120_000_000),
+                LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999_999_999),
+                LocalDateTime.of(-1, 1, 1, 0, 0),
+                LocalDateTime.of(10000, 1, 1, 0, 0, 1),
+                LocalDateTime.MIN,
+                LocalDateTime.MAX,
+        };
+        String[] strings = {"", "a", "é", "中文", "😀", "\uD83D", "\uDE00x", "x\uD83D", "a|b"};
+        long[] numbers = {0, 1, -1, 9, 10, -10, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (LocalDateTime time : times) {
+            for (String string : strings) {
+                for (long number : numbers) {
+                    LogEntry entry = new LogEntry();
+                    entry.setId(string);
+                    entry.setIp(string);
+                    entry.setEventTime(time);
+                    entry.setName(string);
+                    entry.setRandomNumber((int) number);
+                    entry.setProcessTime(number);
+                    entry.setDelayTime(-number);
+                    assertEncodesLikeFormat(entry, buffer);
+                }
+            }
+        }
+    }
+
+    @Test
+    void steadyStateDoesNotAllocate() {
+        LogEntry[] entries = new LogEntry[1000];
+        LocalDateTime time = LocalDateTime.of(2026, 10, 15, 12, 0, 0, 123_000_000);
+        for (int i = 0; i < entries.length; i++) {
+            LogEntry entry = new LogEntry();
+            entry.setId("id-" + i);
+            entry.setIp("10.0.0.1");
+            entry.setEventTime(time.plusSeconds(i / 100));
+            entry.setName("支付");
+            entry.setRandomNumber(i);
+            entry.setProcessTime(1_728_897_330_000L + i);
+            entry.setDelayTime((long) i);
+            entries[i] = entry;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+
+        double bytes = Allocations.bytesPerOp(entries.length, i -> {
+            buffer.clear();
+            encoder.encodedLength(entries[i]);
+            encoder.encode(entries[i], buffer);
+        });
+
+        assertTrue(bytes < 1, "encode allocates " + bytes + " bytes/op");
+    }
+
+    private void assertEncodesLikeFormat(LogEntry entry, ByteBuffer buffer) {
+        byte[] expected = (String.format("%s|%s|%s|%s|%d|%d|%d",
+                entry.getId(),
+                entry.getIp(),
+                entry.getEventTime(),
+                entry.getName(),
+                entry.getRandomNumber(),
+                entry.getProcessTime(),
+                entry.getDelayTime()) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+
+        buffer.clear();
+        int length = encoder.encodedLength(entry);
+        encoder.encode(entry, buffer);
+        byte[] actual = Arrays.copyOf(buffer.array(), buffer.position());
+
+        assertEquals(expected.length, length, () -> "encodedLength for " + entry);
+        assertArrayEquals(expected, actual, () -> "encoded bytes for " + entry);
+    }
+
+    /**
+     * 时间大多与上一条相同或相近，覆盖编码器的时间缓存
+     */
+    private static LogEntry randomEntry(Random random, LocalDateTime previous) {
+        LogEntry entry = new LogEntry();
+        entry.setId(random.nextInt(50) == 0 ? null : randomString(random));
+        entry.setIp(random.nextInt(50) == 0 ? null : randomString(random));
+        entry.setName(random.nextInt(50) == 0 ? null : randomString(random));
+        entry.setRandomNumber(random.nextInt(50) == 0 ? null : random.nextInt());
+        entry.setProcessTime(random.nextInt(50) == 0 ? null : randomLong(random));
+        entry.setDelayTime(random.nextInt(50) == 0 ? null : randomLong(random));
+
+        int choice = random.nextInt(100);
+        if (choice < 2) {
+            entry.setEventTime(null);
+        } else if (choice < 50) {
+            entry.setEventTime(previous);
+        } else if (choice < 90) {
+            entry.setEventTime(previous.plusNanos(randomNanos(random)));
+        } else {
+            entry.setEventTime(LocalDateTime.of(random.nextInt(12000) - 1000, 1 + random.nextInt(12),
+                    1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60),
+                    randomNanos(random)));
+        }
+        return entry;
+    }
+
+    /**
+     * 纳秒部分按整秒、毫秒、微秒和纳秒精度分布
+     */
+    private static int randomNanos(Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return 0;
+            case 1:
+                return random.nextInt(1000) * 1_000_000;
+            case 2:
+                return random.nextInt(1_000_000) * 1_000;
+            default:
+                return random.nextInt(1_000_000_000);
+        }
+    }
+
+    private static long randomLong(Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return random.nextInt(100_000);
+            case 1:
+                return -random.nextInt(100_000);
+            default:
+                return random.nextLong();
+        }
+    }
+
+    /**
+     * 混合 ASCII、2 字节、3 字节、代理对和孤立代理字符
+     */
+    private static String randomString(Random random) {
+        int length = random.nextInt(24);
+        StringBuilder sb = new StringBuilder(length * 2);
+        for (int i = 0; i < length; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 5) {
+                sb.append((char) (0x20 + random.nextInt(0x5F)));
+            } else if (kind < 6) {
+                sb.append((char) (0x80 + random.nextInt(0x780)));
+            } else if (kind < 8) {
+                sb.append((char) (0x800 + random.nextInt(0xD800 - 0x800)));
+            } else if (kind < 9) {
+                sb.appendCodePoint(0x10000 + random.nextInt(0x100000));
+            } else {
+                sb.append((char) (0xD800 + random.nextInt(0x800)));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.logcollector.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.logcollector.model.LogEntry;
+
+/**
+ * PipeLogParser 的结果必须与原来的 split + LocalDateTime.parse + Integer.parseInt 一致，
+ * 同一来源的行只为 ID 分配对象
+ */
+class PipeLogParserTest {
+    private static final int LINES = 300_000;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String[] NAMES = {"login", "pay", "支付", "é", "😀", ""};
+    private static final String[] NUMBERS = {
+            "0", "-0", "+7", "-2147483648", "2147483647", "2147483648", "-2147483649", "00012", "1_0", " 1", "",
+            "99999999999999999999", "-", "+",
+    };
+
+    @Test
+    void matchesSplitParserForRandomLines() {
+        Random random = new Random(20261015L);
+        PipeLogParser heap = new PipeLogParser();
+        PipeLogParser direct = new PipeLogParser();
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(64 * 1024);
+        String previous = "id-0|10.0.0.1|2026-10-15 12:00:00|login|1";
+        for (int i = 0; i < LINES; i++) {
+            String line = random.nextInt(4) == 0 ? previous.replaceFirst("^[^|]*", "id-" + i) : randomLine(random, i);
+            LogEntry expected = splitParse(line);
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+
+            // 前后留出其他内容，确认只读取指定范围
+            ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 2);
+            buffer.put((byte) 'x').put(bytes).put((byte) '\n');
+            assertParsesLike(expected, heap, buffer, bytes.length, line);
+
+            directBuffer.clear();
+            directBuffer.put((byte) 'x').put(bytes).put((byte) '\n');
+            assertParsesLike(expected, direct, directBuffer, bytes.length, line);
+            previous = line;
+        }
+    }
+
+    @Test
+    void sameSourceOnlyAllocatesTheId() {
+        int lines = 10_000;
+        byte[][] content = new byte[lines][];
+        for (int i = 0; i < lines; i++) {
+            content[i] = ("id-" + (100_000 + i) + "|10.0.0.1|2026-10-15 12:00:" + String.format("%02d", i / 200)
+                    + "|login|" + (i % 100)).getBytes(StandardCharsets.UTF_8);
+        }
+        ByteBuffer[] buffers = new ByteBuffer[lines];
+        for (int i = 0; i < lines; i++) {
+            buffers[i] = ByteBuffer.wrap(content[i]);
+        }
+        PipeLogParser parser = new PipeLogParser();
+        LogEntry target = new LogEntry();
+
+        double bytes = Allocations.bytesPerOp(lines, i -> parser.parse(buffers[i], 0, content[i].length, target));
+
+        // ID 字符串约 56 字节（String + byte[]），时间每 200 行换一次，IP 和名称复用上一行的对象，随机数落在 Integer 缓存内
+        assertTrue(bytes < 64, "parse allocates " + bytes + " bytes/line");
+    }
+
+    private static void assertParsesLike(LogEntry expected, PipeLogParser parser, ByteBuffer buffer,
+                                         int length, String line) {
+        LogEntry actual = new LogEntry();
+        boolean valid = parser.parse(buffer, 1, 1 + length, actual);
+        assertEquals(expected != null, valid, line);
+        if (expected != null) {
+            assertEquals(expected.getId(), actual.getId(), line);
+            assertEquals(expected.getIp(), actual.getIp(), line);
+            assertEquals(expected.getEventTime(), actual.getEventTime(), line);
+            assertEquals(expected.getName(), actual.getName(), line);
+            assertEquals(expected.getRandomNumber(), actual.getRandomNumber(), line);
+        }
+    }
+
+    /**
+     * 原来的竖线格式解析：String.split 后逐个字段转换，任一字段非法时返回 null
+     */
+    private static LogEntry splitParse(String line) {
+        try {
+            String[] parts = line.split("\\|");
+            if (parts.length >= 5) {
+                LogEntry entry = new LogEntry();
+                entry.setId(parts[0]);
+                entry.setIp(parts[1]);
+                entry.setEventTime(LocalDateTime.parse(parts[2], FORMATTER));
+                entry.setName(parts[3]);
+                entry.setRandomNumber(Integer.parseInt(parts[4]));
+                return entry;
+            }
+        } catch (RuntimeException e) {
+            // 与原实现一样按无效行处理
+        }
+        return null;
+    }
+
+    /**
+     * 大部分是合法行，其余在字段数、时间和随机数上随机出错，名称含多字节字符
+     */
+    private static String randomLine(Random random, int i) {
+        String ip = random.nextBoolean() ? "10.0.0.1" : "10.0." + random.nextInt(256) + "." + random.nextInt(256);
+        String time = String.format("%04d-%02d-%02d %02d:%02d:%02d", 1990 + random.nextInt(50),
+                1 + random.nextInt(12), 1 + random.nextInt(31), random.nextInt(25), random.nextInt(60),
+                random.nextInt(60));
+        if (random.nextInt(20) == 0) {
+            time = time.replace(' ', 'T');
+        }
+        String name = NAMES[random.nextInt(NAMES.length)];
+        String number = random.nextInt(3) == 0
+                ? NUMBERS[random.nextInt(NUMBERS.length)]
+                : Integer.toString(random.nextInt());
+        String line = "id-" + i + "|" + ip + "|" + time + "|" + name + "|" + number;
+        switch (random.nextInt(10)) {
+            case 0:
+                return line + "|extra|fields";
+            case 1:
+                return line + "|";
+            case 2:
+                return line.substring(0, line.lastIndexOf('|'));
+            case 3:
+                return "|" + line;
+            default:
+                return line;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.logcollector.codec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * TarEntryReader 的文件名解析（ustar 前缀、GNU 长文件名、pax path）、条目跳过和位置记录
+ */
+class TarEntryReaderTest {
+    private static final String LONG_NAME = "logs/" + String.join("/", Collections.nCopies(30, "directory")) + "/a.log";
+
+    @Test
+    void joinsUstarPrefixAndName() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "a.log", "2026/10/15", '0', bytes("line\n"));
+        end(tar);
+
+        try (TarEntryReader reader = reader(tar)) {
+            assertEquals("2026/10/15/a.log", reader.getNextEntry());
+            assertArrayEquals(bytes("line\n"), reader.readAllBytes());
+            assertNull(reader.getNextEntry());
+        }
+    }
+
+    @Test
+    void usesGnuLongNameForFollowingEntry() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "././@LongLink", null, 'L', bytes(LONG_NAME + "\0"));
+        writeEntry(tar, LONG_NAME.substring(0, 99), null, '0', bytes("first\n"));
+        writeEntry(tar, "b.log", null, '0', bytes("second\n"));
+        end(tar);
+
+        try (TarEntryReader reader = reader(tar)) {
+            assertEquals(LONG_NAME, reader.getNextEntry());
+            assertArrayEquals(bytes("first\n"), reader.readAllBytes());
+            // 长文件名只作用于紧随其后的条目
+            assertEquals("b.log", reader.getNextEntry());
+            assertArrayEquals(bytes("second\n"), reader.readAllBytes());
+            assertNull(reader.getNextEntry());
+        }
+    }
+
+    @Test
+    void usesPaxPath() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "PaxHeaders/a.log", null, 'x',
+                bytes(paxRecord("mtime=1760529600.0") + paxRecord("path=" + LONG_NAME)));
+        writeEntry(tar, "a.log", null, '0', bytes("line\n"));
+        end(tar);
+
+        try (TarEntryReader reader = reader(tar)) {
+            assertEquals(LONG_NAME, reader.getNextEntry());
+            assertArrayEquals(bytes("line\n"), reader.readAllBytes());
+        }
+    }
+
+    @Test
+    void skipsDirectoriesAndUnreadContent() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "logs/", null, '5', new byte[0]);
+        writeEntry(tar, "a.log", null, '0', new byte[1000]);
+        writeEntry(tar, "link.log", null, '2', new byte[0]);
+        writeEntry(tar, "b.log", null, '0', bytes("line\n"));
+        end(tar);
+
+        try (TarEntryReader reader = reader(tar)) {
+            assertEquals("a.log", reader.getNextEntry());
+            assertEquals(512, reader.getEntryStart());
+            assertEquals(512 * 4, reader.getEntryEnd());
+            // 不读内容直接取下一个
+            assertEquals("b.log", reader.getNextEntry());
+            assertEquals(512 * 5, reader.getEntryStart());
+            assertArrayEquals(bytes("line\n"), reader.readAllBytes());
+            assertEquals(512 * 7, reader.getEntryEnd());
+            assertNull(reader.getNextEntry());
+        }
+    }
+
+    @Test
+    void resumesFromEntryEnd() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "a.log", null, '0', bytes("first\n"));
+        writeEntry(tar, "b.log", null, '0', bytes("second\n"));
+        end(tar);
+        byte[] archive = tar.toByteArray();
+
+        long end;
+        try (TarEntryReader reader = reader(tar)) {
+            reader.getNextEntry();
+            end = reader.getEntryEnd();
+        }
+        InputStream in = new ByteArrayInputStream(archive);
+        in.skipNBytes(end);
+        try (TarEntryReader reader = new TarEntryReader(in, end)) {
+            assertEquals("b.log", reader.getNextEntry());
+            assertEquals(end, reader.getEntryStart());
+            assertArrayEquals(bytes("second\n"), reader.readAllBytes());
+        }
+    }
+
+    @Test
+    void rejectsCorruptedHeaderAndTruncatedEntry() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "a.log", null, '0', bytes("line\n"));
+        byte[] corrupted = tar.toByteArray();
+        corrupted[0] = 'b';
+        try (TarEntryReader reader = new TarEntryReader(new ByteArrayInputStream(corrupted), 0)) {
+            assertThrows(IOException.class, reader::getNextEntry);
+        }
+
+        byte[] truncated = Arrays.copyOf(tar.toByteArray(), 512 + 2);
+        try (TarEntryReader reader = new TarEntryReader(new ByteArrayInputStream(truncated), 0)) {
+            assertEquals("a.log", reader.getNextEntry());
+            assertThrows(IOException.class, reader::readAllBytes);
+        }
+    }
+
+    private static TarEntryReader reader(ByteArrayOutputStream tar) {
+        return new TarEntryReader(new ByteArrayInputStream(tar.toByteArray()), 0);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * pax 记录的长度包含长度字段本身
+     */
+    private static String paxRecord(String keyValue) {
+        int length = keyValue.length() + 3;
+        while (Integer.toString(length).length() + keyValue.length() + 2 != length) {
+            length++;
+        }
+        return length + " " + keyValue + "\n";
+    }
+
+    private static void writeEntry(ByteArrayOutputStream out, String name, String prefix, char type, byte[] data)
+            throws IOException {
+        byte[] header = new byte[512];
+        putString(header, 0, name);
+        putString(header, 100, "0000644");
+        putString(header, 108, "0000000");
+        putString(header, 116, "0000000");
+        putString(header, 124, String.format("%011o", data.length));
+        putString(header, 136, "00000000000");
+        header[156] = (byte) type;
+        putString(header, 257, "ustar");
+        putString(header, 263, "00");
+        if (prefix != null) {
+            putString(header, 345, prefix);
+        }
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        int sum = 0;
+        for (byte b : header) {
+            sum += b & 0xff;
+        }
+        putString(header, 148, String.format("%06o", sum));
+        out.write(header);
+        out.write(data);
+        out.write(new byte[(512 - data.length % 512) % 512]);
+    }
+
+    private static void end(ByteArrayOutputStream out) throws IOException {
+        out.write(new byte[1024]);
+    }
+
+    private static void putString(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
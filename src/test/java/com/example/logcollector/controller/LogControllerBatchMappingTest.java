@@ -0,0 +1,130 @@
+package com.example.logcollector.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.logcollector.model.BatchJobStatus;
+import com.example.logcollector.model.IngestResult;
+import com.example.logcollector.service.BatchJobService;
+import com.example.logcollector.service.LogService;
+import com.example.logcollector.service.StreamIngestService;
+
+/**
+ * POST /api/logs/batch 的四种组合：multipart 或原始请求体，同步或 async=true
+ */
+@WebMvcTest(controllers = LogController.class, properties = "logging.file.name=target/test-logs/application.log")
+class LogControllerBatchMappingTest {
+    private static final byte[] ARCHIVE = "id|ip|2024-01-01 00:00:00|name|1\n".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LogService logService;
+
+    @MockBean
+    private StreamIngestService streamIngestService;
+
+    @MockBean
+    private BatchJobService batchJobService;
+
+    private final AtomicReference<byte[]> spooled = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(streamIngestService.getMaxZipRequestBytes()).thenReturn(1024L * 1024);
+        BatchJobStatus status = new BatchJobStatus();
+        status.setId("job-1");
+        // 请求体只在请求处理期间可读，在提交时读出
+        when(batchJobService.submit(any(), any())).thenAnswer(invocation -> {
+            InputStreamSource upload = invocation.getArgument(0);
+            try (InputStream in = upload.getInputStream()) {
+                spooled.set(in.readAllBytes());
+            }
+            return status;
+        });
+    }
+
+    @Test
+    void rawBodyWithAsyncSubmitsJob() throws Exception {
+        mockMvc.perform(post("/api/logs/batch").param("async", "true")
+                        .contentType("application/zip").content(ARCHIVE))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/logs/batch/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"));
+
+        verify(batchJobService).submit(any(), eq("application/zip"));
+        assertArrayEquals(ARCHIVE, spooled.get());
+        verify(streamIngestService, never()).processArchiveStream(any(), any());
+    }
+
+    @Test
+    void rawBodyWithAsyncOverLimitIsRejected() throws Exception {
+        when(streamIngestService.getMaxZipRequestBytes()).thenReturn(4L);
+        mockMvc.perform(post("/api/logs/batch").param("async", "true")
+                        .contentType("application/gzip").content(ARCHIVE))
+                .andExpect(status().isPayloadTooLarge());
+
+        verify(batchJobService, never()).submit(any(), any());
+    }
+
+    @Test
+    void multipartWithAsyncSubmitsJob() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "logs.zip", "application/zip", ARCHIVE);
+        mockMvc.perform(multipart("/api/logs/batch").file(file).param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/logs/batch/job-1"));
+
+        verify(batchJobService).submit(any(MultipartFile.class), eq("application/zip"));
+        assertArrayEquals(ARCHIVE, spooled.get());
+    }
+
+    @Test
+    void rawBodyWithoutAsyncIsStreamed() throws Exception {
+        when(streamIngestService.processArchiveStream(any(), eq("application/x-tar"))).thenReturn(new IngestResult());
+        mockMvc.perform(post("/api/logs/batch").contentType("application/x-tar").content(ARCHIVE))
+                .andExpect(status().isOk());
+
+        verify(batchJobService, never()).submit(any(), any());
+    }
+
+    @Test
+    void multipartWithoutAsyncIsProcessed() throws Exception {
+        when(logService.processBatchLogs(any(MultipartFile.class))).thenReturn(CompletableFuture.completedFuture(null));
+        MockMultipartFile file = new MockMultipartFile("file", "logs.zip", "application/zip", ARCHIVE);
+        MvcResult result = mockMvc.perform(multipart("/api/logs/batch").file(file))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        verify(batchJobService, never()).submit(any(), any());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.logcollector.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 从 /proc/net/udp 的内容中累加本端口（5141，即 :1415）所有套接字的 drops 列
+ */
+class UdpDatagramReceiverTest {
+    private static final String PORT_SUFFIX = ":1415";
+    private static final String HEADER = "   sl  local_address rem_address   st tx_queue rx_queue tr tm->when retrnsmt"
+            + "   uid  timeout inode ref pointer drops\n";
+
+    @Test
+    void sumsDropsOfAllSocketsOnPort() throws IOException {
+        String udp = HEADER
+                + socket(1, "00000000:1415", "00000000:0000", 17)
+                + socket(2, "00000000:1415", "00000000:0000", 5)           // SO_REUSEPORT 的第二个套接字
+                + socket(3, "0100007F:0035", "00000000:0000", 1000)        // 其他端口
+                + socket(4, "0100007F:A1B2", "0A000001:1415", 1000)        // 远端端口相同
+                + socket(5, "00000000:14150", "00000000:0000", 1000);      // 端口只是前缀相同
+        assertEquals(22, UdpDatagramReceiver.parseDrops(reader(udp), PORT_SUFFIX));
+    }
+
+    @Test
+    void parsesIpv6Addresses() throws IOException {
+        String udp6 = HEADER
+                + socket(1, "00000000000000000000000000000000:1415", "00000000000000000000000000000000:0000", 3);
+        assertEquals(3, UdpDatagramReceiver.parseDrops(reader(udp6), PORT_SUFFIX));
+    }
+
+    @Test
+    void returnsMinusOneWithoutSocketOnPort() throws IOException {
+        assertEquals(-1, UdpDatagramReceiver.parseDrops(reader(HEADER), PORT_SUFFIX));
+        assertEquals(-1, UdpDatagramReceiver.parseDrops(
+                reader(HEADER + socket(1, "00000000:0035", "00000000:0000", 9)), PORT_SUFFIX));
+        // 没有丢弃时为 0，与没有套接字区分
+        assertEquals(0, UdpDatagramReceiver.parseDrops(
+                reader(HEADER + socket(1, "00000000:1415", "00000000:0000", 0)), PORT_SUFFIX));
+    }
+
+    @Test
+    void rejectsMalformedDrops() {
+        String udp = HEADER + socket(1, "00000000:1415", "00000000:0000", 0).replace(" 0\n", " x\n");
+        assertThrows(NumberFormatException.class, () -> UdpDatagramReceiver.parseDrops(reader(udp), PORT_SUFFIX));
+    }
+
+    private static BufferedReader reader(String content) {
+        return new BufferedReader(new StringReader(content));
+    }
+
+    private static String socket(int sl, String local, String remote, long drops) {
+        return String.format("%5d: %s %s 07 00000000:00000000 00:00000000 00000000  1000        0 %d 2 "
+                + "0000000000000000 %d%n", sl, local, remote, 40000 + sl, drops);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.logcollector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.example.logcollector.codec.RejectReason;
+
+/**
+ * 死信文件的记录格式和按大小轮转：文件不超过上限，历史文件按顺序保留 max-files 个，更早的记录被丢弃
+ */
+class DeadLetterSinkTest {
+    private static final int MAX_FILE_BYTES = 1000;
+    private static final int MAX_LINE_BYTES = 40;
+
+    @TempDir
+    Path dir;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void rotatesAndKeepsNewestFiles() throws IOException {
+        DeadLetterSink sink = sink(true, 2);
+        int lines = 100;
+        for (int i = 1; i <= lines; i++) {
+            reject(sink, i, "id-" + i + "|10.0.0.1|bad-time|login|1");
+        }
+        sink.close();
+
+        assertTrue(Files.exists(dir.resolve("dead-letter.log.2")));
+        assertFalse(Files.exists(dir.resolve("dead-letter.log.3")));
+        List<String> records = new ArrayList<>();
+        for (String name : new String[]{"dead-letter.log.2", "dead-letter.log.1", "dead-letter.log"}) {
+            Path file = dir.resolve(name);
+            assertTrue(Files.size(file) <= MAX_FILE_BYTES, name + " is " + Files.size(file) + " bytes");
+            records.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+        }
+        // 保留的是最新的一段连续记录，以最后一行结束
+        for (int i = 0; i < records.size(); i++) {
+            String[] fields = records.get(i).split("\t", -1);
+            assertEquals(6, fields.length, records.get(i));
+            assertEquals(lines - records.size() + 1 + i, Long.parseLong(fields[3]));
+        }
+        assertTrue(records.size() < lines);
+        assertEquals(lines, meterRegistry.counter("logcollector.deadletter.written").count());
+    }
+
+    @Test
+    void encodesRecordFields() throws IOException {
+        DeadLetterSink sink = sink(true, 2);
+        String line = "id-1\t10.0.0.1\r" + "x".repeat(100);
+        ByteBuffer buffer = ByteBuffer.wrap(("ignored\n" + line + "\n").getBytes(StandardCharsets.UTF_8));
+        sink.reject("batch", "a.log", 7, RejectReason.MISSING_FIELDS, buffer, 8, 8 + line.length());
+        sink.close();
+
+        String[] fields = Files.readAllLines(dir.resolve("dead-letter.log"), StandardCharsets.UTF_8).get(0)
+                .split("\t", -1);
+        assertEquals("batch", fields[1]);
+        assertEquals("a.log", fields[2]);
+        assertEquals("7", fields[3]);
+        assertEquals("missing-fields", fields[4]);
+        // 制表符和回车替换为空格，超长部分截断
+        assertEquals(("id-1 10.0.0.1 " + "x".repeat(100)).substring(0, MAX_LINE_BYTES), fields[5]);
+        assertEquals(0, buffer.position());
+        assertEquals(buffer.capacity(), buffer.limit());
+    }
+
+    @Test
+    void deletesFullFileWhenNoHistoryIsKept() throws IOException {
+        DeadLetterSink sink = sink(true, 0);
+        for (int i = 1; i <= 100; i++) {
+            reject(sink, i, "id-" + i);
+        }
+        sink.close();
+
+        assertFalse(Files.exists(dir.resolve("dead-letter.log.1")));
+        List<String> records = Files.readAllLines(dir.resolve("dead-letter.log"), StandardCharsets.UTF_8);
+        assertTrue(records.get(records.size() - 1).endsWith("\tid-100"));
+    }
+
+    @Test
+    void disabledSinkOnlyCounts() {
+        DeadLetterSink sink = sink(false, 2);
+        reject(sink, 1, "bad");
+        sink.close();
+
+        assertFalse(Files.exists(dir.resolve("dead-letter.log")));
+        assertEquals(1, meterRegistry.counter("logcollector.batch.rejected",
+                "reason", RejectReason.INVALID_EVENT_TIME.tag()).count());
+    }
+
+    private DeadLetterSink sink(boolean enabled, int maxFiles) {
+        return new DeadLetterSink(meterRegistry, enabled, dir.toString(), MAX_FILE_BYTES, maxFiles,
+                MAX_LINE_BYTES, 1024);
+    }
+
+    private static void reject(DeadLetterSink sink, long lineNumber, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        sink.reject("batch", "a.log", lineNumber, RejectReason.INVALID_EVENT_TIME,
+                ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.logcollector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * DuplicateFilter 的误判率、窗口内不漏判，以及按容量和按时间的轮转
+ */
+class DuplicateFilterTest {
+    private static final long HOUR_NANOS = TimeUnit.HOURS.toNanos(1);
+    private static final int EXPECTED_IDS = 200_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Test
+    void falsePositiveRateWithinTargetForUuids() {
+        Random random = new Random(20261015L);
+        assertFalsePositiveRate(i -> new UUID(random.nextLong(), random.nextLong()).toString());
+    }
+
+    @Test
+    void falsePositiveRateWithinTargetForOtherIds() {
+        assertFalsePositiveRate(i -> "id-" + i);
+    }
+
+    @Test
+    void rotatesWhenGenerationIsFull() {
+        // 4 代，每代容量 1000；误判为重复的 ID 不会写入，所以按轮转次数划分各代，并且只检查真正写入的 ID
+        DuplicateFilter filter = new DuplicateFilter(HOUR_NANOS, 4, 3000, FALSE_POSITIVE_RATE);
+        boolean[] recorded = new boolean[10_000];
+        int i = 0;
+        while (filter.getRotations() == 0) {
+            recorded[i] = !filter.contains("id-" + i);
+            filter.add("id-" + i++);
+        }
+        int oldest = i - 1;                                     // 触发轮转的 ID 写入了第二代
+        assertTrue(oldest >= 1000 && oldest < 1100, "first generation holds " + oldest + " ids");
+        while (filter.getRotations() < 4) {
+            recorded[i] = !filter.contains("id-" + i);
+            filter.add("id-" + i++);
+        }
+        for (int j = oldest; j < i; j++) {
+            if (recorded[j]) {
+                assertTrue(filter.contains("id-" + j), "id-" + j);
+            }
+        }
+
+        // 最老的一代已清空，除误判外不再识别
+        int remembered = 0;
+        for (int j = 0; j < oldest; j++) {
+            if (filter.contains("id-" + j)) {
+                remembered++;
+            }
+        }
+        assertTrue(remembered < oldest / 20, remembered + " of " + oldest + " expired ids still reported");
+    }
+
+    @Test
+    void repeatedIdsDoNotFillGeneration() {
+        DuplicateFilter filter = new DuplicateFilter(HOUR_NANOS, 4, 3000, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("id-" + (i % 10));
+        }
+        assertEquals(0, filter.getRotations());
+    }
+
+    @Test
+    void expiresAfterWindow() throws InterruptedException {
+        // 2 代时每代覆盖整个窗口
+        long window = TimeUnit.MILLISECONDS.toNanos(50);
+        DuplicateFilter filter = new DuplicateFilter(window, 2, 1000, FALSE_POSITIVE_RATE);
+        filter.add("id-1");
+        filter.maybeRotate();
+        assertEquals(0, filter.getRotations());
+
+        TimeUnit.NANOSECONDS.sleep(window + TimeUnit.MILLISECONDS.toNanos(10));
+        filter.maybeRotate();
+        assertEquals(1, filter.getRotations());
+        assertTrue(filter.contains("id-1"));
+
+        TimeUnit.NANOSECONDS.sleep(window + TimeUnit.MILLISECONDS.toNanos(10));
+        filter.maybeRotate();
+        assertEquals(2, filter.getRotations());
+        assertFalse(filter.contains("id-1"));
+    }
+
+    /**
+     * 插满一个窗口后，用同样多的未插入过的 ID 统计误判率
+     */
+    private static void assertFalsePositiveRate(IntFunction<String> ids) {
+        DuplicateFilter filter = new DuplicateFilter(HOUR_NANOS, 4, EXPECTED_IDS, FALSE_POSITIVE_RATE);
+        String[] added = new String[EXPECTED_IDS];
+        for (int i = 0; i < EXPECTED_IDS; i++) {
+            added[i] = ids.apply(i);
+            filter.add(added[i]);
+        }
+        for (String id : added) {
+            assertTrue(filter.contains(id), id);
+        }
+        int falsePositives = 0;
+        for (int i = EXPECTED_IDS; i < 2 * EXPECTED_IDS; i++) {
+            if (filter.contains(ids.apply(i))) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / EXPECTED_IDS;
+        assertTrue(rate <= FALSE_POSITIVE_RATE * 1.5, "false positive rate " + rate);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.logcollector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 分块压缩的结果可直接用 gzip 解压；中断的压缩留下的半成品被覆盖，已删除的文件重复提交时忽略
+ */
+class LogCompactorTest {
+    private static final int BLOCK_SIZE = 64;
+
+    @TempDir
+    Path dir;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LogCompactor compactor = new LogCompactor(meterRegistry, true, 6, BLOCK_SIZE, 1, 16);
+
+    @AfterEach
+    void tearDown() {
+        compactor.shutdown();
+    }
+
+    @Test
+    void compactsIntoLineAlignedBlocks() throws Exception {
+        Path file = dir.resolve("client_20240101_00.log");
+        String content = lines(20);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        compactor.submit(file);
+        awaitCompacted(file);
+
+        assertEquals(content, gunzip(gz(file)));
+        assertTrue(Files.size(idx(file)) > 16, "more than one block");
+        try (DataInputStream index = new DataInputStream(Files.newInputStream(idx(file)))) {
+            byte[] original = content.getBytes(StandardCharsets.UTF_8);
+            long previous = -1;
+            while (index.available() > 0) {
+                long offset = index.readLong();
+                index.readLong();
+                assertTrue(offset > previous);
+                assertTrue(offset == 0 || original[(int) offset - 1] == '\n', "block starts at a line");
+                previous = offset;
+            }
+        }
+    }
+
+    @Test
+    void overwritesLeftoversOfInterruptedCompaction() throws Exception {
+        Path file = dir.resolve("client_20240101_01.log");
+        String content = lines(5);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.write(gz(file), new byte[] {0x1f, (byte) 0x8b, 8});
+        Files.write(idx(file), new byte[] {1, 2, 3});
+
+        compactor.submit(file);
+        awaitCompacted(file);
+
+        assertEquals(content, gunzip(gz(file)));
+        assertEquals(0, Files.size(idx(file)) % 16);
+    }
+
+    @Test
+    void ignoresFileAlreadyCompacted() throws Exception {
+        Path file = dir.resolve("client_20240101_02.log");
+        Files.write(file, lines(3).getBytes(StandardCharsets.UTF_8));
+        compactor.submit(file);
+        awaitCompacted(file);
+
+        compactor.submit(file);
+        compactor.shutdown();
+        Thread.sleep(100);
+
+        assertEquals(1.0, meterRegistry.get("logcollector.compaction.files").counter().count());
+        assertEquals(0.0, meterRegistry.get("logcollector.compaction.files.skipped").counter().count());
+    }
+
+    private static String lines(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("id-").append(i).append("|10.0.0.1|2024-01-01 00:00:00|name|").append(i).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void awaitCompacted(Path file) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (Files.exists(file)) {
+            assertTrue(System.currentTimeMillis() < deadline, "compaction timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    private static Path gz(Path file) {
+        return file.resolveSibling(file.getFileName() + ".gz");
+    }
+
+    private static Path idx(Path file) {
+        return file.resolveSibling(file.getFileName() + ".gz.idx");
+    }
+
+    private static String gunzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.example.logcollector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.logcollector.buffer.DirectBufferPool;
+import com.example.logcollector.writer.DurabilityMode;
+import com.example.logcollector.writer.LogSegment;
+import com.example.logcollector.writer.OverflowPolicy;
+import com.example.logcollector.writer.ShardRouting;
+import com.example.logcollector.writer.ShardWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 批量条目读取失败后从检查点重试、重启后从保存的检查点继续：写入的日志既不重复也不缺失；
+ * 归档中的同名条目各自处理
+ */
+class LogServiceBatchResumeTest {
+    private static final int LINES = 20_000;
+    private static final int LONG_LINE_BYTES = 70_000;          // 超过 64 KB 的行缓冲区，被丢弃
+    private static final int[] LONG_LINES = {5_000, 12_000};
+    private static final int[] INVALID_LINES = {777, 15_000};
+    private static final String KEY = LogService.entryKey(0, "entry.txt");
+
+    @TempDir
+    Path dir;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MemorySegment segment = new MemorySegment();
+    private DirectBufferPool bufferPool;
+    private ShardWriter shardWriter;
+    private LogService logService;
+
+    @BeforeEach
+    void setUp() {
+        bufferPool = new DirectBufferPool(meterRegistry, 64L * 1024 * 1024, false);
+        shardWriter = new ShardWriter(segment, bufferPool, 256 * 1024, path -> {
+        });
+        LogWriter logWriter = mock(LogWriter.class);
+        when(logWriter.getShardCount()).thenReturn(1);
+        when(logWriter.getShard(0)).thenReturn(shardWriter);
+        DeadLetterSink deadLetters = new DeadLetterSink(meterRegistry, false, "logs", 1 << 20, 1, 4096, 1024);
+        logService = new LogService(logWriter, deadLetters, meterRegistry, new ObjectMapper(),
+                1 << 20, 8192, 100, DurabilityMode.FIRE_AND_FORGET, ShardRouting.ID, OverflowPolicy.BLOCK,
+                1024, 2, 16, false, 600, 4, 1000, 0.0001);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        logService.cleanup();
+        shardWriter.close();
+    }
+
+    @Test
+    void resumesFromCheckpointWithoutDuplicatesOrGaps() throws Exception {
+        Content content = buildContent();
+        // 第一次在普通行的中间失败，第二次在被丢弃的超长行中间失败，第三次读完
+        long firstFailure = content.lineStart(3_000) + 7;
+        long secondFailure = content.lineStart(LONG_LINES[1]) + LONG_LINE_BYTES / 2;
+        FailingOpener opener = new FailingOpener(content.bytes, firstFailure, secondFailure);
+        CountingProgress progress = new CountingProgress();
+
+        long rejected = logService.processEntry(KEY, "entry.txt", opener, progress).get(30, TimeUnit.SECONDS);
+        logService.cleanup();
+
+        int expectedRejected = LONG_LINES.length + INVALID_LINES.length;
+        assertEquals(3, opener.opens.get());
+        assertEquals(expectedRejected, rejected);
+        assertEquals(LINES - expectedRejected, progress.accepted.get());
+        assertEquals(expectedRejected, progress.rejected.get());
+        assertEquals(content.expectedIds, segment.writtenIds());
+    }
+
+    @Test
+    void failsAfterLastAttemptWithoutDuplicates() throws Exception {
+        Content content = buildContent();
+        long failure = content.lineStart(10_000) + 3;
+        FailingOpener opener = new FailingOpener(content.bytes, failure, failure, failure);
+        CountingProgress progress = new CountingProgress();
+
+        try {
+            logService.processEntry(KEY, "entry.txt", opener, progress).get(30, TimeUnit.SECONDS);
+        } catch (java.util.concurrent.ExecutionException expected) {
+            // 重试耗尽后以最后一次的异常失败
+        }
+        logService.cleanup();
+
+        // 失败位置之前的日志各写入一次，之后的一条都没有
+        List<String> written = segment.writtenIds();
+        assertEquals(3, opener.opens.get());
+        assertEquals(content.expectedIdsBefore(10_000), written);
+        assertEquals(written.size(), progress.accepted.get());
+    }
+
+    @Test
+    void resumesFromSavedCheckpointAfterRestart() throws Exception {
+        Content content = buildContent();
+        long failure = content.lineStart(LONG_LINES[1]) + LONG_LINE_BYTES - 100;
+        CountingProgress first = new CountingProgress();
+        try {
+            logService.processEntry(KEY, "entry.txt", new FailingOpener(content.bytes, failure, failure, failure),
+                    first).get(30, TimeUnit.SECONDS);
+        } catch (java.util.concurrent.ExecutionException expected) {
+            // 模拟处理到一半时停机，检查点由 progress 保存
+        }
+        long[] saved = first.checkpoints.get(KEY);
+        assertEquals(1, saved[2], "checkpoint inside the discarded long line");
+
+        // 重启后只带着保存的检查点重新处理，计数从检查点处的结果继续
+        CountingProgress second = new CountingProgress();
+        second.checkpoints.put(KEY, saved);
+        FailingOpener opener = new FailingOpener(content.bytes);
+        long rejected = logService.processEntry(KEY, "entry.txt", opener, second).get(30, TimeUnit.SECONDS);
+        logService.cleanup();
+
+        int expectedRejected = LONG_LINES.length + INVALID_LINES.length;
+        assertEquals(1, opener.opens.get());
+        assertEquals(expectedRejected, rejected);
+        assertEquals(LINES - expectedRejected, second.completed.get(KEY)[0]);
+        assertEquals(content.expectedIds, segment.writtenIds());
+    }
+
+    @Test
+    void processesDuplicateTarEntriesSeparately() throws Exception {
+        Path tar = dir.resolve("dup.tar");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTarEntry(out, "app.log", "id-1|10.0.0.1|2024-01-01 10:00:00|name|1\n");
+        writeTarEntry(out, "app.log", "id-2|10.0.0.1|2024-01-01 10:00:00|name|2\n");
+        out.write(new byte[1024], 0, 1024);
+        Files.write(tar, out.toByteArray());
+
+        CountingProgress progress = new CountingProgress();
+        logService.processBatchFile(tar, null, progress).get(30, TimeUnit.SECONDS);
+        assertEquals(2, progress.completed.size());
+
+        // 第一个条目已完成时恢复处理，第二个同名条目不会被当作已完成
+        CountingProgress resumed = new CountingProgress();
+        String firstKey = progress.completed.keySet().iterator().next();
+        resumed.completed.put(firstKey, progress.completed.get(firstKey));
+        logService.processBatchFile(tar, null, resumed).get(30, TimeUnit.SECONDS);
+        logService.cleanup();
+
+        assertEquals(2, resumed.completed.size());
+        assertEquals(Arrays.asList("id-1", "id-2", "id-2"), segment.writtenIds());
+    }
+
+    @Test
+    void processesDuplicateZipEntriesSeparately() throws Exception {
+        // ZipOutputStream 不允许同名条目，写入等长的不同名称后再改成同名
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("a.log"));
+            zip.write("id-1|10.0.0.1|2024-01-01 10:00:00|name|1\n".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("b.log"));
+            zip.write("id-2|10.0.0.1|2024-01-01 10:00:00|name|2\n".getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] bytes = out.toString(StandardCharsets.ISO_8859_1).replace("b.log", "a.log")
+                .getBytes(StandardCharsets.ISO_8859_1);
+        Path zip = dir.resolve("dup.zip");
+        Files.write(zip, bytes);
+
+        AtomicInteger entries = new AtomicInteger();
+        CountingProgress progress = new CountingProgress() {
+            @Override
+            public void onStarted(int count) {
+                entries.set(count);
+            }
+        };
+        logService.processBatchFile(zip, null, progress).get(30, TimeUnit.SECONDS);
+        logService.cleanup();
+
+        assertEquals(2, entries.get());
+        assertEquals(2, progress.completed.size());
+        List<String> written = segment.writtenIds();
+        Collections.sort(written);
+        assertEquals(Arrays.asList("id-1", "id-2"), written);
+    }
+
+    private static void writeTarEntry(ByteArrayOutputStream out, String name, String content) {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        byte[] header = new byte[512];
+        putString(header, 0, name);
+        putString(header, 100, "0000644");
+        putString(header, 108, "0000000");
+        putString(header, 116, "0000000");
+        putString(header, 124, String.format("%011o", data.length));
+        putString(header, 136, "00000000000");
+        header[156] = '0';
+        putString(header, 257, "ustar");
+        putString(header, 263, "00");
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        int sum = 0;
+        for (byte b : header) {
+            sum += b & 0xff;
+        }
+        putString(header, 148, String.format("%06o", sum));
+        out.write(header, 0, header.length);
+        out.write(data, 0, data.length);
+        int padding = (512 - data.length % 512) % 512;
+        out.write(new byte[padding], 0, padding);
+    }
+
+    private static void putString(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    /**
+     * 竖线格式的日志行，其中穿插超长行和无法解析的行
+     */
+    private static Content buildContent() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long[] starts = new long[LINES];
+        List<String> ids = new ArrayList<>();
+        byte[] longLine = new byte[LONG_LINE_BYTES];
+        Arrays.fill(longLine, (byte) 'x');
+        for (int i = 0; i < LINES; i++) {
+            starts[i] = out.size();
+            if (Arrays.binarySearch(LONG_LINES, i) >= 0) {
+                out.write(longLine, 0, longLine.length);
+                out.write('\n');
+            } else if (Arrays.binarySearch(INVALID_LINES, i) >= 0) {
+                out.writeBytes("not a log line\n".getBytes(StandardCharsets.UTF_8));
+            } else {
+                String id = "id-" + i;
+                ids.add(id);
+                out.writeBytes((id + "|10.0.0.1|2024-01-01 10:00:00|name|" + i + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return new Content(out.toByteArray(), starts, ids);
+    }
+
+    private static final class Content {
+        private final byte[] bytes;
+        private final long[] lineStarts;
+        private final List<String> expectedIds;
+
+        private Content(byte[] bytes, long[] lineStarts, List<String> expectedIds) {
+            this.bytes = bytes;
+            this.lineStarts = lineStarts;
+            this.expectedIds = expectedIds;
+        }
+
+        private long lineStart(int line) {
+            return lineStarts[line];
+        }
+
+        /**
+         * 第 line 行之前所有合法行的 ID
+         */
+        private List<String> expectedIdsBefore(int line) {
+            List<String> ids = new ArrayList<>();
+            for (String id : expectedIds) {
+                if (Integer.parseInt(id.substring(3)) < line) {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * 第 n 次打开的流读到 failures[n] 字节时抛出 IOException，没有对应的失败位置时正常读完
+     */
+    private static final class FailingOpener implements LogService.EntryOpener {
+        private final byte[] content;
+        private final long[] failures;
+        private final AtomicInteger opens = new AtomicInteger();
+
+        private FailingOpener(byte[] content, long... failures) {
+            this.content = content;
+            this.failures = failures;
+        }
+
+        @Override
+        public InputStream open() {
+            int attempt = opens.getAndIncrement();
+            long failAt = attempt < failures.length ? failures[attempt] : Long.MAX_VALUE;
+            return new InputStream() {
+                private int position;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (position >= failAt) {
+                        throw new IOException("Injected read failure at " + position);
+                    }
+                    if (position >= content.length) {
+                        return -1;
+                    }
+                    int n = (int) Math.min(len, Math.min(content.length - position, failAt - position));
+                    System.arraycopy(content, position, b, off, n);
+                    position += n;
+                    return n;
+                }
+            };
+        }
+    }
+
+    private static class CountingProgress implements BatchProgress {
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final Map<String, long[]> checkpoints = new ConcurrentHashMap<>();
+        private final Map<String, long[]> completed = new ConcurrentSkipListMap<>();
+
+        @Override
+        public boolean isEntryCompleted(String key) {
+            return completed.containsKey(key);
+        }
+
+        @Override
+        public long[] entryCheckpoint(String key) {
+            return checkpoints.get(key);
+        }
+
+        @Override
+        public void onPublished(long accepted, long rejected) {
+            this.accepted.addAndGet(accepted);
+            this.rejected.addAndGet(rejected);
+        }
+
+        @Override
+        public void onCheckpoint(String key, long[] checkpoint) {
+            checkpoints.put(key, checkpoint);
+        }
+
+        @Override
+        public void onEntryCompleted(String key, long accepted, long rejected) {
+            checkpoints.remove(key);
+            completed.put(key, new long[] {accepted, rejected});
+        }
+    }
+
+    /**
+     * 写入内存的日志段，按行取出写入的 ID
+     */
+    private static final class MemorySegment implements LogSegment {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        @Override
+        public Path path() {
+            return Paths.get("memory.log");
+        }
+
+        @Override
+        public synchronized void write(ByteBuffer src) {
+            byte[] bytes = new byte[src.remaining()];
+            src.get(bytes);
+            out.writeBytes(bytes);
+        }
+
+        @Override
+        public void force() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private synchronized List<String> writtenIds() {
+            List<String> ids = new ArrayList<>();
+            for (String line : out.toString(StandardCharsets.UTF_8).split(System.lineSeparator())) {
+                if (!line.isEmpty()) {
+                    ids.add(line.substring(0, line.indexOf('|')));
+                }
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.logcollector.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.logcollector.buffer.DirectBufferPool;
+import com.example.logcollector.writer.DurabilityMode;
+import com.example.logcollector.writer.LogSegment;
+import com.example.logcollector.writer.OverflowPolicy;
+import com.example.logcollector.writer.ShardRouting;
+import com.example.logcollector.writer.ShardWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 实时上报的请求体必须恰好是一个 JSON 对象；不允许阻塞的调用方在等待队列已满时被拒绝而不是阻塞
+ */
+class LogServiceRealtimeJsonTest {
+    private static final int RING_BUFFER_SIZE = 64 * 1024;
+    private static final int PENDING_CAPACITY = 4;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch writable = new CountDownLatch(1);  // 打开前写线程阻塞在写入上
+    private ShardWriter shardWriter;
+    private LogService logService;
+
+    @BeforeEach
+    void setUp() {
+        DirectBufferPool bufferPool = new DirectBufferPool(meterRegistry, 16L * 1024 * 1024, false);
+        shardWriter = new ShardWriter(new BlockingSegment(writable), bufferPool, 64 * 1024, path -> {
+        });
+        LogWriter logWriter = mock(LogWriter.class);
+        when(logWriter.getShardCount()).thenReturn(1);
+        when(logWriter.getShard(0)).thenReturn(shardWriter);
+        DeadLetterSink deadLetters = new DeadLetterSink(meterRegistry, false, "logs", 1 << 20, 1, 4096, 1024);
+        logService = new LogService(logWriter, deadLetters, meterRegistry, new ObjectMapper(),
+                1 << 20, 8192, 100, DurabilityMode.FIRE_AND_FORGET, ShardRouting.ID, OverflowPolicy.BLOCK,
+                PENDING_CAPACITY, 1, 16, false, 600, 4, 1000, 0.0001);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        writable.countDown();
+        logService.cleanup();
+        shardWriter.close();
+    }
+
+    @Test
+    void acceptsSingleObjectWithTrailingWhitespace() {
+        writable.countDown();
+        assertDoesNotThrow(() -> publish("{\"id\":\"a\",\"name\":\"n\"}\r\n  "));
+    }
+
+    @Test
+    void rejectsTrailingContent() {
+        writable.countDown();
+        assertThrows(InvalidLogException.class, () -> publish("{\"id\":\"a\"}{\"id\":\"b\"}"));
+        assertThrows(InvalidLogException.class, () -> publish("{\"id\":\"a\"} 1"));
+        assertThrows(InvalidLogException.class, () -> publish("{\"id\":\"a\"}garbage"));
+    }
+
+    @Test
+    void rejectsNonObjectRoot() {
+        writable.countDown();
+        assertThrows(InvalidLogException.class, () -> publish("[{\"id\":\"a\"}]"));
+        assertThrows(InvalidLogException.class, () -> publish(""));
+    }
+
+    @Test
+    void nonBlockingCallerIsRejectedWhenPendingQueueIsFull() {
+        // 写线程阻塞后 RingBuffer 和等待队列依次被填满，之后不允许阻塞的调用方立即被拒绝
+        byte[] bytes = "{\"id\":\"a\"}".getBytes(StandardCharsets.UTF_8);
+        int accepted = 0;
+        while (true) {
+            try {
+                logService.processRealtimeJson(bytes, bytes.length, true);
+                accepted++;
+            } catch (LogRejectedException e) {
+                break;
+            }
+        }
+        assertTrue(accepted >= RING_BUFFER_SIZE + PENDING_CAPACITY, "accepted " + accepted);
+        assertEquals(1.0, meterRegistry.get("logcollector.ring.rejected").counter().count());
+    }
+
+    private void publish(String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        logService.processRealtimeJson(bytes, bytes.length);
+    }
+
+    /**
+     * 丢弃写入的内容，latch 打开前写入阻塞
+     */
+    private static final class BlockingSegment implements LogSegment {
+        private final CountDownLatch writable;
+
+        private BlockingSegment(CountDownLatch writable) {
+            this.writable = writable;
+        }
+
+        @Override
+        public Path path() {
+            return Paths.get("discard.log");
+        }
+
+        @Override
+        public void write(ByteBuffer src) {
+            try {
+                writable.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            src.position(src.limit());
+        }
+
+        @Override
+        public void force() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
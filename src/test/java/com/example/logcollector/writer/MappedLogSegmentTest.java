@@ -0,0 +1,112 @@
+package com.example.logcollector.writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * 未关闭（模拟进程崩溃）的映射文件重新打开后，续写的内容紧接在最后一条完整的行之后
+ */
+class MappedLogSegmentTest {
+    private static final int REGION_SIZE = 64;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopenAfterCrashAppendsAfterLastLine() throws IOException {
+        Path file = dir.resolve("crash.log");
+        MappedLogSegment crashed = new MappedLogSegment(file, REGION_SIZE);
+        // 跨越多个区域，最后一个区域只写了一部分，尾部是预分配的零字节
+        String before = lines("a", 0, 10);
+        write(crashed, before);
+        crashed.force();
+        assertTrue(Files.size(file) > before.length());
+
+        String after = lines("b", 0, 5);
+        MappedLogSegment reopened = new MappedLogSegment(file, REGION_SIZE);
+        write(reopened, after);
+        reopened.close();
+
+        assertEquals(before + after, read(file));
+    }
+
+    @Test
+    void reopenDropsIncompleteTrailingLine() throws IOException {
+        Path file = dir.resolve("partial.log");
+        MappedLogSegment crashed = new MappedLogSegment(file, REGION_SIZE);
+        String complete = lines("a", 0, 3);
+        write(crashed, complete + "a-3|half-writ");
+        crashed.force();
+
+        MappedLogSegment reopened = new MappedLogSegment(file, REGION_SIZE);
+        write(reopened, "b-0\n");
+        reopened.close();
+
+        assertEquals(complete + "b-0\n", read(file));
+    }
+
+    @Test
+    void reopenAfterCrashAcrossRegionBoundary() throws IOException {
+        Path file = dir.resolve("boundary.log");
+        MappedLogSegment crashed = new MappedLogSegment(file, REGION_SIZE);
+        // 第一行恰好写满一个区域，第二行落在下一个区域的开头，其后都是零字节
+        String line = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcde\n";
+        assertEquals(REGION_SIZE, line.length());
+        write(crashed, line + "x\n");
+        crashed.force();
+
+        MappedLogSegment reopened = new MappedLogSegment(file, REGION_SIZE);
+        reopened.close();
+
+        assertEquals(line + "x\n", read(file));
+    }
+
+    @Test
+    void reopenClosedFileAppends() throws IOException {
+        Path file = dir.resolve("closed.log");
+        MappedLogSegment first = new MappedLogSegment(file, REGION_SIZE);
+        write(first, "a\n");
+        first.close();
+        MappedLogSegment second = new MappedLogSegment(file, REGION_SIZE);
+        write(second, "b\n");
+        second.close();
+
+        assertEquals("a\nb\n", read(file));
+    }
+
+    @Test
+    void reopenFileWithoutAnyCompleteLine() throws IOException {
+        Path file = dir.resolve("garbage.log");
+        Files.write(file, new byte[] {'x', 'y', 0, 0, 0});
+        MappedLogSegment reopened = new MappedLogSegment(file, REGION_SIZE);
+        write(reopened, "a\n");
+        reopened.close();
+
+        assertEquals("a\n", read(file));
+    }
+
+    private static String lines(String prefix, int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            sb.append(prefix).append('-').append(i).append("|10.0.0.1|name\n");
+        }
+        return sb.toString();
+    }
+
+    private static void write(LogSegment segment, String content) throws IOException {
+        segment.write(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.logcollector.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 响应式接入层的服务器配置，仅在 -Pwebflux 构建中存在
+ * Tomcat 仍在类路径上，Spring Boot 默认会优先用 Tomcat 承载 WebFlux，这里显式指定 Reactor Netty
+ */
+@Configuration
+public class ReactiveServerConfig {
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.logcollector.controller;
+
+import com.example.logcollector.service.InvalidLogException;
+import com.example.logcollector.service.LogRejectedException;
+import com.example.logcollector.service.LogService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 基于 WebFlux / Reactor Netty 的接入层，仅在 -Pwebflux 构建中存在
+ * 与 LogController 提供相同的 /realtime 和 /batch 接口，写入同一个 LogService RingBuffer：
+ * 请求体由 Netty 池化的 ByteBuf 聚合，在事件循环线程上复制到线程复用的数组后立即释放，
+ * 随后直接解析到 RingBuffer 槽位；等待写入确认期间不占用任何线程
+ */
+@RestController
+@RequestMapping("/api/logs")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLogController {
+    private static final ResponseEntity<String> SUCCESS = ResponseEntity.ok("Success");
+    private static final int MAX_LOG_BYTES = 100 * 1024;           // 单条日志大小上限
+    private static final ThreadLocal<byte[]> BODY_BUFFER =
+            ThreadLocal.withInitial(() -> new byte[MAX_LOG_BYTES]);  // 事件循环线程数量少，直接按上限分配
+
+    private final LogService logService;
+
+    public ReactiveLogController(LogService logService) {
+        this.logService = logService;
+    }
+
+    /**
+     * 实时日志上报
+     * RingBuffer 已满时日志进入 LogService 的等待队列，事件循环线程不会阻塞；
+     * 等待队列也满时返回 503，由客户端稍后重试，不阻塞事件循环线程
+     */
+    @PostMapping("/realtime")
+    public Mono<ResponseEntity<String>> handleRealtimeLog(ServerHttpRequest request) {
+        return DataBufferUtils.join(request.getBody(), MAX_LOG_BYTES)
+                .map(this::publish)
+                .switchIfEmpty(Mono.fromSupplier(() -> publish(0)))
+                .flatMap(Mono::fromFuture)
+                .onErrorResume(DataBufferLimitException.class, e -> Mono.just(
+                        ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("Log entry exceeds " + MAX_LOG_BYTES + " bytes")));
+    }
+
+    private CompletableFuture<ResponseEntity<String>> publish(DataBuffer body) {
+        int length = body.readableByteCount();
+        try {
+            body.read(BODY_BUFFER.get(), 0, length);
+        } finally {
+            DataBufferUtils.release(body);
+        }
+        return publish(length);
+    }
+
+    private CompletableFuture<ResponseEntity<String>> publish(int length) {
+        CompletableFuture<Void> ack;
+        try {
+            ack = logService.processRealtimeJson(BODY_BUFFER.get(), length, true);
+        } catch (InvalidLogException e) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body("Invalid log entry: " + e.getMessage()));
+        } catch (LogRejectedException e) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Log rejected: " + e.getMessage()));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(failure(e));
+        }
+        return ack.handle((ignored, e) -> e == null ? SUCCESS : failure(e));
+    }
+
+    private static ResponseEntity<String> failure(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return ResponseEntity.internalServerError().body("Failed to process log: " + cause.getMessage());
+    }
+
+    /**
+     * 批量上报：压缩包先落盘为临时文件，再在 boundedElastic 线程池中打开，条目由 LogService 并行处理和重试
+     * 格式由 LogService 按魔数和该部分的 Content-Type 识别，临时文件不带扩展名
+     */
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<String>> handleBatchLogs(@RequestPart("file") FilePart zipFile) {
+        return Mono.fromCallable(() -> Files.createTempFile("batch-", ""))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(file -> zipFile.transferTo(file)
+                        .then(Mono.fromFuture(() -> logService.processBatchLogs(new FileSystemResource(file),
+                                        contentType(zipFile)))
+                                .subscribeOn(Schedulers.boundedElastic()))
+                        .doFinally(signal -> deleteQuietly(file)))
+                .thenReturn(SUCCESS)
+                .onErrorResume(e -> Mono.just(
+                        ResponseEntity.internalServerError().body("Failed to process batch logs: " + e.getMessage())));
+    }
+
+    private static String contentType(FilePart part) {
+        MediaType type = part.headers().getContentType();
+        return type == null ? null : type.toString();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}